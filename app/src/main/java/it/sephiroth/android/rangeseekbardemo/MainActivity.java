@@ -1,6 +1,7 @@
 package it.sephiroth.android.rangeseekbardemo;
 
 import android.annotation.SuppressLint;
+import android.content.Intent;
 import android.os.Bundle;
 import android.widget.TextView;
 
@@ -27,6 +28,8 @@ public class MainActivity extends AppCompatActivity {
         initializeSeekBar(seekBar2, textView2);
         initializeSeekBar(seekBar3, textView3);
 
+        findViewById(R.id.stressLabButton).setOnClickListener(
+            view -> startActivity(new Intent(this, StressLabActivity.class)));
     }
 
     private void initializeSeekBar(RangeSeekBar seekbar, TextView textView) {
@@ -0,0 +1,339 @@
+package it.sephiroth.android.rangeseekbardemo;
+
+import android.annotation.SuppressLint;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.view.Choreographer;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.SeekBar;
+import android.widget.Switch;
+import android.widget.TextView;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import it.sephiroth.android.library.rangeseekbar.RangeSeekBar;
+import it.sephiroth.android.library.rangeseekbar.RangeSeekBarMetrics;
+
+/**
+ * Repeatable local harness for performance changes: a list of {@link #ROW_COUNT} seek bars, fed from a
+ * background thread at a configurable rate, with an on-screen readout of the frame stats and of the
+ * {@link RangeSeekBarMetrics} shared by all the bars.
+ */
+public class StressLabActivity extends AppCompatActivity {
+    private static final int ROW_COUNT = 500;
+    private static final int MAX = 1000;
+    private static final int HUGE_MAX = 1_000_000;
+    /** Each step of the rate seekbar */
+    private static final int RATE_STEP = 20;
+    private static final long PRODUCER_TICK_MS = 4;
+    private static final long STATS_INTERVAL_MS = 1000;
+
+    private final RangeSeekBarMetrics mMetrics = new RangeSeekBarMetrics();
+    private final StressAdapter mAdapter = new StressAdapter();
+
+    private HandlerThread mProducerThread;
+    private Handler mProducerHandler;
+    private Producer mProducer;
+
+    private TextView mFrameStats;
+    private final FrameStats mFrameCallback = new FrameStats();
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_stress_lab);
+
+        mFrameStats = findViewById(R.id.frameStats);
+
+        final RecyclerView recyclerView = findViewById(R.id.recyclerView);
+        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        recyclerView.setAdapter(mAdapter);
+
+        mProducerThread = new HandlerThread("StressLabProducer");
+        mProducerThread.start();
+        mProducerHandler = new Handler(mProducerThread.getLooper());
+        mProducer = new Producer();
+
+        final TextView rateText = findViewById(R.id.updateRateText);
+        final SeekBar rate = findViewById(R.id.updateRate);
+        rate.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
+            @Override
+            public void onProgressChanged(final SeekBar seekBar, final int progress, final boolean fromUser) {
+                mProducer.setRate(progress * RATE_STEP);
+                rateText.setText(String.valueOf(progress * RATE_STEP));
+            }
+
+            @Override
+            public void onStartTrackingTouch(final SeekBar seekBar) { }
+
+            @Override
+            public void onStopTrackingTouch(final SeekBar seekBar) { }
+        });
+        rate.setProgress(3);
+        rateText.setText(String.valueOf(rate.getProgress() * RATE_STEP));
+        mProducer.setRate(rate.getProgress() * RATE_STEP);
+
+        final Switch producerSwitch = findViewById(R.id.producerSwitch);
+        producerSwitch.setOnCheckedChangeListener((buttonView, isChecked) -> mProducer.setRunning(isChecked));
+        producerSwitch.setChecked(true);
+
+        final Switch hugeMaxSwitch = findViewById(R.id.hugeMaxSwitch);
+        hugeMaxSwitch.setOnCheckedChangeListener((buttonView, isChecked) -> mAdapter.setHugeMax(isChecked));
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        mFrameCallback.start();
+    }
+
+    @Override
+    protected void onPause() {
+        mFrameCallback.stop();
+        super.onPause();
+    }
+
+    @Override
+    protected void onDestroy() {
+        mProducer.setRunning(false);
+        mProducerThread.quit();
+        super.onDestroy();
+    }
+
+    /**
+     * Random walk of all the rows, pushed from the producer thread into the bars currently attached.
+     * When the rate is higher than the tick rate several updates are pushed per tick, which is what
+     * the coalescing of the bars must absorb.
+     */
+    private class Producer implements Runnable {
+        private final Random mRandom = new Random(0);
+        private volatile int mRate;
+        private volatile boolean mRunning;
+        private long mLastTick;
+        private float mDue;
+
+        void setRate(int updatesPerSecond) {
+            mRate = updatesPerSecond;
+        }
+
+        void setRunning(boolean running) {
+            if (running == mRunning) {
+                return;
+            }
+            mRunning = running;
+            mProducerHandler.removeCallbacks(this);
+            if (running) {
+                mLastTick = SystemClock.uptimeMillis();
+                mDue = 0;
+                mProducerHandler.post(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            if (!mRunning) {
+                return;
+            }
+
+            final long now = SystemClock.uptimeMillis();
+            mDue += mRate * (now - mLastTick) / 1000f;
+            mLastTick = now;
+
+            final int updates = (int) mDue;
+            mDue -= updates;
+
+            for (int i = 0; i < updates; i++) {
+                mAdapter.step(mRandom);
+            }
+
+            mProducerHandler.postAtTime(this, now + PRODUCER_TICK_MS);
+        }
+    }
+
+    private class StressAdapter extends RecyclerView.Adapter<StressHolder> {
+        private static final int TYPE_PLAIN = 0;
+        private static final int TYPE_HUGE = 1;
+
+        /** Values as fractions of max, so the mode can change while the producer runs */
+        private final float[] mStarts = new float[ROW_COUNT];
+        private final float[] mEnds = new float[ROW_COUNT];
+        private final List<StressHolder> mAttached = new CopyOnWriteArrayList<>();
+        private volatile boolean mHugeMax;
+
+        StressAdapter() {
+            for (int i = 0; i < ROW_COUNT; i++) {
+                mStarts[i] = 0.25f;
+                mEnds[i] = 0.75f;
+            }
+        }
+
+        void setHugeMax(boolean value) {
+            mHugeMax = value;
+            notifyDataSetChanged();
+        }
+
+        int getMax() {
+            return mHugeMax ? HUGE_MAX : MAX;
+        }
+
+        /**
+         * Move every row, then push the new values into the attached bars. Called on the producer thread.
+         */
+        void step(Random random) {
+            for (int i = 0; i < ROW_COUNT; i++) {
+                final float start = clamp(mStarts[i] + (random.nextFloat() - 0.5f) * 0.02f, 0, 0.5f);
+                final float end = clamp(mEnds[i] + (random.nextFloat() - 0.5f) * 0.02f, 0.5f, 1);
+                mStarts[i] = start;
+                mEnds[i] = end;
+            }
+
+            final int max = getMax();
+            for (StressHolder holder : mAttached) {
+                final int position = holder.mPosition;
+                if (position != RecyclerView.NO_POSITION && holder.mMax == max) {
+                    holder.mSeekBar.setProgress((int) (mStarts[position] * max), (int) (mEnds[position] * max));
+                }
+            }
+        }
+
+        @Override
+        public int getItemViewType(final int position) {
+            return mHugeMax ? TYPE_HUGE : TYPE_PLAIN;
+        }
+
+        @NonNull
+        @Override
+        public StressHolder onCreateViewHolder(@NonNull final ViewGroup parent, final int viewType) {
+            final View view = LayoutInflater.from(parent.getContext()).inflate(
+                viewType == TYPE_HUGE ? R.layout.item_stress_bar_discrete : R.layout.item_stress_bar, parent, false);
+            final StressHolder holder = new StressHolder(view, viewType == TYPE_HUGE ? HUGE_MAX : MAX);
+            holder.mSeekBar.setMetrics(mMetrics);
+            return holder;
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull final StressHolder holder, final int position) {
+            holder.mPosition = position;
+            holder.mSeekBar.setProgress((int) (mStarts[position] * holder.mMax), (int) (mEnds[position] * holder.mMax));
+        }
+
+        @Override
+        public void onViewAttachedToWindow(@NonNull final StressHolder holder) {
+            mAttached.add(holder);
+        }
+
+        @Override
+        public void onViewDetachedFromWindow(@NonNull final StressHolder holder) {
+            mAttached.remove(holder);
+        }
+
+        @Override
+        public int getItemCount() {
+            return ROW_COUNT;
+        }
+
+        private float clamp(float value, float min, float max) {
+            return Math.max(min, Math.min(max, value));
+        }
+    }
+
+    static class StressHolder extends RecyclerView.ViewHolder {
+        final RangeSeekBar mSeekBar;
+        final int mMax;
+        volatile int mPosition = RecyclerView.NO_POSITION;
+
+        StressHolder(@NonNull final View itemView, final int max) {
+            super(itemView);
+            mSeekBar = (RangeSeekBar) itemView;
+            mMax = max;
+        }
+    }
+
+    /**
+     * Counts the frames and the janky ones (longer than 1.5 frames at 60Hz), and
+     * refreshes the readout once per second together with the bar metrics.
+     */
+    private class FrameStats implements Choreographer.FrameCallback {
+        private static final long JANK_THRESHOLD_NANOS = 25_000_000;
+
+        private long mLastFrameNanos;
+        private long mWindowStartNanos;
+        private int mFrames;
+        private int mJankyFrames;
+        private long mWorstFrameNanos;
+        private boolean mRunning;
+
+        void start() {
+            mRunning = true;
+            mLastFrameNanos = 0;
+            mWindowStartNanos = 0;
+            mMetrics.reset();
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        void stop() {
+            mRunning = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(final long frameTimeNanos) {
+            if (!mRunning) {
+                return;
+            }
+
+            if (mLastFrameNanos != 0) {
+                final long interval = frameTimeNanos - mLastFrameNanos;
+                mFrames++;
+                mWorstFrameNanos = Math.max(mWorstFrameNanos, interval);
+                if (interval > JANK_THRESHOLD_NANOS) {
+                    mJankyFrames++;
+                }
+            } else {
+                mWindowStartNanos = frameTimeNanos;
+            }
+            mLastFrameNanos = frameTimeNanos;
+
+            final long elapsed = frameTimeNanos - mWindowStartNanos;
+            if (elapsed >= STATS_INTERVAL_MS * 1_000_000) {
+                publish(elapsed);
+                mWindowStartNanos = frameTimeNanos;
+                mFrames = 0;
+                mJankyFrames = 0;
+                mWorstFrameNanos = 0;
+            }
+
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        @SuppressLint ("DefaultLocale")
+        private void publish(long elapsedNanos) {
+            final RangeSeekBarMetrics.Snapshot snapshot = mMetrics.snapshot();
+            mMetrics.reset();
+
+            final float seconds = elapsedNanos / 1e9f;
+            final String text = String.format(
+                "fps %.1f  janky %d  worst %.1fms\n"
+                    + "draw p50 %dus p99 %dus  listener p99 %dus  input p99 %dus\n"
+                    + "delivered %.0f/s  coalesced %.0f/s  invalidations %.0f/s",
+                mFrames / seconds, mJankyFrames, mWorstFrameNanos / 1e6f,
+                snapshot.getDrawTimeMicros(0.5f), snapshot.getDrawTimeMicros(0.99f),
+                snapshot.getListenerTimeMicros(0.99f), snapshot.getInputLatencyMicros(0.99f),
+                snapshot.getUpdatesDelivered() / seconds, snapshot.getUpdatesCoalesced() / seconds,
+                snapshot.getInvalidationsPerSecond()
+            );
+
+            mFrameStats.setText(text);
+        }
+    }
+}
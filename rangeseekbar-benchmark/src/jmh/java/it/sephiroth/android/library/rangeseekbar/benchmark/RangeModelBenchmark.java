@@ -0,0 +1,93 @@
+package it.sephiroth.android.library.rangeseekbar.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import it.sephiroth.android.library.rangeseekbar.RangeModel;
+
+/**
+ * Measures the per-MotionEvent math of the {@link RangeModel}.<br />
+ * Run with: ./gradlew :rangeseekbar-benchmark:jmh<br />
+ * The gc profiler is enabled in the build file, so "gc.alloc.rate.norm" is reported for each benchmark and
+ * must stay at 0 B/op.
+ */
+@State (Scope.Thread)
+@BenchmarkMode (Mode.Throughput)
+@OutputTimeUnit (TimeUnit.SECONDS)
+public class RangeModelBenchmark {
+    private static final int SAMPLES = 1024;
+
+    @Param ({"100", "100000"})
+    public int max;
+
+    @Param ({"1", "10"})
+    public int stepSize;
+
+    private RangeModel mModel;
+    private RangeModel mBoundedModel;
+    private int[] mValues;
+    private int mIndex;
+
+    @Setup
+    public void setup() {
+        mModel = new RangeModel();
+        mModel.setMax(max);
+        mModel.setStepSize(stepSize);
+        mModel.setMinMaxStepSize(stepSize);
+
+        mBoundedModel = new RangeModel();
+        mBoundedModel.setMax(max);
+        mBoundedModel.setStepSize(stepSize);
+        mBoundedModel.setStartEndBoundaries(max / 3, max / 2);
+
+        // simulate a drag: a sequence of close values, with some overshooting samples
+        final Random random = new Random(0);
+        mValues = new int[SAMPLES];
+        int value = max / 2;
+        for (int i = 0; i < SAMPLES; i++) {
+            value += random.nextInt(max / 50 + 3) - (max / 100 + 1);
+            mValues[i] = value;
+        }
+    }
+
+    private int next() {
+        mIndex = (mIndex + 1) & (SAMPLES - 1);
+        return mValues[mIndex];
+    }
+
+    @Benchmark
+    public long dragStart() {
+        return mModel.apply(next(), mModel.getEnd());
+    }
+
+    @Benchmark
+    public long dragEnd() {
+        return mModel.apply(mModel.getStart(), next());
+    }
+
+    @Benchmark
+    public long dragBounded() {
+        return mBoundedModel.apply(next(), mBoundedModel.getEnd());
+    }
+
+    @Benchmark
+    public long constrain() {
+        final int value = next();
+        return mModel.constrain(value - stepSize, value + stepSize);
+    }
+
+    @Benchmark
+    public int unpack() {
+        final long range = mModel.getRange();
+        return RangeModel.start(range) + RangeModel.end(range);
+    }
+}
@@ -0,0 +1,104 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.os.SystemClock;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Debug overlay drawn on top of a {@link RangeProgressBar}, see {@link RangeProgressBar#setDebugOverlayEnabled(boolean)}.<br />
+ * Shows the duration of the last draw, the progress updates received vs the frames rendered per
+ * second and the outline of the last invalidated region. The text is built into a reused
+ * {@link StringBuilder}, the overlay doesn't allocate while drawing.
+ */
+final class DebugOverlay {
+    private static final long RATE_WINDOW_MS = 1000;
+
+    private final Paint mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mBackgroundPaint = new Paint();
+    private final Paint mDirtyPaint = new Paint();
+    private final StringBuilder mText = new StringBuilder(64);
+    private final Rect mDirtyRect = new Rect();
+    private final float mPadding;
+
+    /** Updates can be received from any thread */
+    private final AtomicInteger mUpdatesReceived = new AtomicInteger();
+    private int mFramesRendered;
+    private long mWindowStart = SystemClock.uptimeMillis();
+    private int mUpdatesPerSecond;
+    private int mFramesPerSecond;
+    private long mLastDrawNanos;
+
+    DebugOverlay(float density) {
+        mPadding = 2 * density;
+
+        mTextPaint.setColor(Color.WHITE);
+        mTextPaint.setTextSize(10 * density);
+
+        mBackgroundPaint.setColor(0x99000000);
+
+        mDirtyPaint.setColor(0xccff00ff);
+        mDirtyPaint.setStyle(Paint.Style.STROKE);
+        mDirtyPaint.setStrokeWidth(density);
+    }
+
+    void onUpdateReceived() {
+        mUpdatesReceived.incrementAndGet();
+    }
+
+    void onInvalidate(Rect dirty) {
+        mDirtyRect.set(dirty);
+    }
+
+    /**
+     * @param drawNanos duration of the view draw which just completed
+     */
+    void onFrameRendered(long drawNanos) {
+        mLastDrawNanos = drawNanos;
+        mFramesRendered++;
+
+        final long now = SystemClock.uptimeMillis();
+        final long elapsed = now - mWindowStart;
+        if (elapsed >= RATE_WINDOW_MS) {
+            mUpdatesPerSecond = (int) (mUpdatesReceived.getAndSet(0) * 1000L / elapsed);
+            mFramesPerSecond = (int) (mFramesRendered * 1000L / elapsed);
+            mFramesRendered = 0;
+            mWindowStart = now;
+        }
+    }
+
+    void draw(Canvas canvas) {
+        if (!mDirtyRect.isEmpty()) {
+            canvas.drawRect(mDirtyRect, mDirtyPaint);
+        }
+
+        final StringBuilder text = mText;
+        text.setLength(0);
+        text.append("draw ");
+        appendMillis(text, mLastDrawNanos);
+        text.append("ms  upd ").append(mUpdatesPerSecond)
+            .append("/s  fps ").append(mFramesPerSecond)
+            .append("/s  dirty ").append(mDirtyRect.width()).append('x').append(mDirtyRect.height());
+
+        final float textWidth = mTextPaint.measureText(text, 0, text.length());
+        final float textHeight = mTextPaint.getTextSize();
+        canvas.drawRect(0, 0, textWidth + mPadding * 2, textHeight + mPadding * 2, mBackgroundPaint);
+        canvas.drawText(text, 0, text.length(), mPadding, mPadding + textHeight - mTextPaint.descent(), mTextPaint);
+    }
+
+    /**
+     * Append nanos as milliseconds with two decimals, without String.format
+     */
+    private static void appendMillis(StringBuilder text, long nanos) {
+        final long hundredths = nanos / 10_000;
+        text.append(hundredths / 100).append('.');
+        final long decimals = hundredths % 100;
+        if (decimals < 10) {
+            text.append('0');
+        }
+        text.append(decimals);
+    }
+}
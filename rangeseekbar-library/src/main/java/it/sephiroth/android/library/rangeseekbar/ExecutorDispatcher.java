@@ -0,0 +1,73 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Delivers the progress changes of a {@link RangeSeekBar} to a listener on a caller supplied
+ * {@link Executor}, so the listener work doesn't run inside the frame.<br />
+ * Changes are conflated into a {@link RefreshMailbox}: while a delivery is queued or running, new
+ * changes replace the pending one and at most one task is submitted to the executor at any time.
+ * <p>
+ * Guarantees:
+ * <ul>
+ * <li>calls never overlap, even on a multi-threaded executor, and they follow the order of the changes</li>
+ * <li>intermediate values can be dropped when the executor falls behind, the newest values are always delivered</li>
+ * <li>fromUser is true if at least one of the conflated changes came from the user</li>
+ * <li>once {@link #cancel()} is called no new call starts, a call already running is not interrupted</li>
+ * </ul>
+ */
+final class ExecutorDispatcher implements Runnable {
+
+    interface Target {
+        void onRangeChanged(int start, int end, boolean fromUser);
+    }
+
+    private final RefreshMailbox mMailbox = new RefreshMailbox();
+    private final Executor mExecutor;
+    private final Target mTarget;
+    private volatile boolean mCancelled;
+
+    ExecutorDispatcher(Executor executor, Target target) {
+        mExecutor = executor;
+        mTarget = target;
+    }
+
+    /**
+     * Queue a change, from any thread. Never blocks and never allocates.
+     */
+    void offer(int start, int end, boolean fromUser) {
+        if (mCancelled) {
+            return;
+        }
+
+        if (mMailbox.offer(start, end, fromUser, false)) {
+            mExecutor.execute(this);
+        }
+    }
+
+    /**
+     * Drop the pending change and stop the deliveries
+     */
+    void cancel() {
+        mCancelled = true;
+        mMailbox.take();
+    }
+
+    boolean isCancelled() {
+        return mCancelled;
+    }
+
+    @Override
+    public void run() {
+        do {
+            long value;
+            while ((value = mMailbox.take()) != RefreshMailbox.EMPTY) {
+                if (mCancelled) {
+                    return;
+                }
+                mTarget.onRangeChanged(
+                    RefreshMailbox.start(value), RefreshMailbox.end(value), RefreshMailbox.isFromUser(value));
+            }
+        } while (mMailbox.release());
+    }
+}
@@ -0,0 +1,189 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Region.Op;
+
+/**
+ * Histogram drawn behind the track of a {@link RangeProgressBar}, its bars grow upwards from the
+ * middle of the track.<br />
+ * The bucket counts are kept as prefix sums, so the count of any value interval (and therefore of any
+ * bar, whatever the ratio between buckets and pixels) is a difference of two interpolated entries.<br />
+ * All the bars are added to a single cached {@link Path}, rebuilt only when the buckets, the size, the
+ * max value or the value scale change. The selected and unselected parts are the same path drawn twice
+ * with a different clip, so moving a thumb only moves the split point.
+ */
+final class HistogramLayer {
+    private final Path mPath = new Path();
+    private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    /** mPrefixSums[i] is the sum of the first i buckets */
+    private long[] mPrefixSums = new long[1];
+    private int mBucketCount;
+    private float[] mBarCounts = new float[0];
+
+    private int mColor;
+    private int mSelectedColor;
+    private int mBarWidth = 1;
+    private int mHeight;
+
+    private int mWidth = -1;
+    /** Height actually drawn, at most {@link #mHeight} */
+    private int mDrawnHeight = -1;
+    private int mMax = -1;
+    private ValueScale mScale;
+    private boolean mDirty = true;
+
+    HistogramLayer() {
+        mPaint.setStyle(Paint.Style.FILL);
+    }
+
+    /**
+     * @param buckets count of each bucket. Buckets are evenly distributed between 0 and max.
+     *                The array is not retained.
+     */
+    void setBuckets(int[] buckets) {
+        final int count = buckets.length;
+        if (mPrefixSums.length < count + 1) {
+            mPrefixSums = new long[count + 1];
+        }
+
+        long sum = 0;
+        mPrefixSums[0] = 0;
+        for (int i = 0; i < count; i++) {
+            sum += Math.max(0, buckets[i]);
+            mPrefixSums[i + 1] = sum;
+        }
+
+        mBucketCount = count;
+        mDirty = true;
+    }
+
+    boolean isEmpty() {
+        return mBucketCount == 0;
+    }
+
+    void setColors(int color, int selectedColor) {
+        mColor = color;
+        mSelectedColor = selectedColor;
+    }
+
+    void setBarWidth(int value) {
+        value = Math.max(1, value);
+        if (value != mBarWidth) {
+            mBarWidth = value;
+            mDirty = true;
+        }
+    }
+
+    int getBarWidth() {
+        return mBarWidth;
+    }
+
+    void setHeight(int value) {
+        if (value != mHeight) {
+            mHeight = value;
+            mDirty = true;
+        }
+    }
+
+    int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * Draw the histogram. The canvas must be translated so that y = 0 is the baseline of the bars,
+     * which grow upwards.
+     *
+     * @param width         track width
+     * @param height        height available above the baseline, the histogram is not taller than {@link #getHeight()}
+     * @param max           max progress value
+     * @param scale         value scale, used as cache key for the table
+     * @param table         value scale table, or null when the scale is linear
+     * @param selectedStart start of the selected part, in pixels
+     * @param selectedEnd   end of the selected part, in pixels
+     */
+    void draw(
+        Canvas canvas, int width, int height, int max, ValueScale scale, ValueScaleTable table,
+        float selectedStart, float selectedEnd) {
+
+        height = Math.min(height, mHeight);
+        if (mBucketCount == 0 || width <= 0 || max <= 0 || height <= 0) {
+            return;
+        }
+
+        if (mDirty || width != mWidth || height != mDrawnHeight || max != mMax || scale != mScale) {
+            mWidth = width;
+            mDrawnHeight = height;
+            mMax = max;
+            mScale = scale;
+            mDirty = false;
+            build(table);
+        }
+
+        int saveCount = canvas.save();
+        canvas.clipRect(selectedStart, -height, selectedEnd, 0);
+        mPaint.setColor(mSelectedColor);
+        canvas.drawPath(mPath, mPaint);
+        canvas.restoreToCount(saveCount);
+
+        saveCount = canvas.save();
+        canvas.clipRect(selectedStart, -height, selectedEnd, 0, Op.DIFFERENCE);
+        mPaint.setColor(mColor);
+        canvas.drawPath(mPath, mPaint);
+        canvas.restoreToCount(saveCount);
+    }
+
+    private void build(ValueScaleTable table) {
+        final int width = mWidth;
+        final int gap = Math.max(1, mBarWidth / 4);
+        final int barCount = Math.max(1, width / (mBarWidth + gap));
+        final float pitch = (float) width / barCount;
+
+        if (mBarCounts.length < barCount) {
+            mBarCounts = new float[barCount];
+        }
+
+        // downsample (or upsample) the buckets to the bars
+        float maxCount = 0;
+        double previous = prefixSumAt(0);
+        for (int i = 0; i < barCount; i++) {
+            final float to = (float) (i + 1) / barCount;
+            final double next = prefixSumAt(table != null ? table.toValue(to) : to * mMax);
+            final float count = (float) (next - previous);
+            mBarCounts[i] = count;
+            maxCount = Math.max(maxCount, count);
+            previous = next;
+        }
+
+        mPath.rewind();
+
+        if (maxCount > 0) {
+            final float barWidth = pitch - gap;
+            for (int i = 0; i < barCount; i++) {
+                final float height = mBarCounts[i] / maxCount * mDrawnHeight;
+                if (height > 0) {
+                    final float left = i * pitch + gap / 2f;
+                    mPath.addRect(left, -height, left + barWidth, 0, Path.Direction.CW);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the (interpolated) sum of the buckets between 0 and value
+     */
+    private double prefixSumAt(float value) {
+        final double position = (double) value * mBucketCount / mMax;
+        if (position <= 0) {
+            return 0;
+        }
+        if (position >= mBucketCount) {
+            return mPrefixSums[mBucketCount];
+        }
+        final int index = (int) position;
+        final long from = mPrefixSums[index];
+        return from + (position - index) * (mPrefixSums[index + 1] - from);
+    }
+}
@@ -0,0 +1,71 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import java.util.Arrays;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Copy-on-write list of listeners.<br />
+ * Adding or removing a listener copies the array, while dispatching only reads the current snapshot
+ * with {@link #get()} and iterates it by index: no Iterator, no lock and no allocation per event.
+ * A listener removed during a dispatch still receives the event being dispatched, one added during a
+ * dispatch receives it from the next event.
+ */
+final class ListenerList<T> {
+    private volatile T[] mListeners;
+
+    /**
+     * @param empty empty array of the listener type, shared while there are no listeners
+     */
+    ListenerList(@NonNull T[] empty) {
+        mListeners = empty;
+    }
+
+    /**
+     * Add a listener, if not already present
+     *
+     * @return true if the listener was added
+     */
+    synchronized boolean add(@NonNull T listener) {
+        final T[] current = mListeners;
+        if (indexOf(current, listener) >= 0) {
+            return false;
+        }
+        final T[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = listener;
+        mListeners = updated;
+        return true;
+    }
+
+    /**
+     * @return true if the listener was found and removed
+     */
+    synchronized boolean remove(@NonNull T listener) {
+        final T[] current = mListeners;
+        final int index = indexOf(current, listener);
+        if (index < 0) {
+            return false;
+        }
+        final T[] updated = Arrays.copyOf(current, current.length - 1);
+        System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+        mListeners = updated;
+        return true;
+    }
+
+    /**
+     * Current snapshot of the listeners. The returned array must not be modified.
+     */
+    @NonNull
+    T[] get() {
+        return mListeners;
+    }
+
+    private static int indexOf(Object[] array, Object value) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
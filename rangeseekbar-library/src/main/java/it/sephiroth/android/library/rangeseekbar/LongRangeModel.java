@@ -0,0 +1,230 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Pure java model holding a (start, end) range of long values, i.e. epoch milliseconds.<br />
+ * Values are in [min, max] and are snapped to min + k * stepSize with integer math only, so
+ * snapping stays exact for the whole 64-bit range. When max is not on that grid, the last grid
+ * point below max is the highest value stored. Ties are rounded down, as in {@link RangeModel}.<br />
+ * The two values can't be packed into a single atomic word as in {@link RangeModel}, so they are
+ * published with a sequence counter, which is odd while a write is in progress: writers are
+ * serialized by a spin lock on the counter and readers retry until they see the same even counter
+ * before and after reading. Both yield the thread while they wait. Nothing is allocated.
+ */
+@SuppressWarnings ({"unused", "WeakerAccess"})
+public final class LongRangeModel {
+    private static final AtomicIntegerFieldUpdater<LongRangeModel> SEQUENCE =
+        AtomicIntegerFieldUpdater.newUpdater(LongRangeModel.class, "mSequence");
+
+    private volatile int mSequence;
+
+    private volatile long mMin = 0;
+    private volatile long mMax = 100;
+    private volatile long mStepSize = 1;
+    private volatile long mMinDistance = 0;
+    private volatile long mStart = 0;
+    private volatile long mEnd = 100;
+
+    /**
+     * Snap, constrain and store the given values.
+     *
+     * @return true if the stored range changed
+     */
+    public boolean apply(long start, long end) {
+        final int sequence = beginWrite();
+        try {
+            return store(start, end);
+        } finally {
+            endWrite(sequence);
+        }
+    }
+
+    /**
+     * Copy the current range into the passed array: out[0] is start and out[1] is end.
+     * Use this, rather than {@link #getStart()} and {@link #getEnd()}, when both values must be
+     * consistent with each other.
+     */
+    public void getRange(long[] out) {
+        while (true) {
+            final int sequence = mSequence;
+            if ((sequence & 1) == 0) {
+                final long start = mStart;
+                final long end = mEnd;
+                if (sequence == mSequence) {
+                    out[0] = start;
+                    out[1] = end;
+                    return;
+                }
+            }
+            Thread.yield();
+        }
+    }
+
+    public long getStart() {
+        return mStart;
+    }
+
+    public long getEnd() {
+        return mEnd;
+    }
+
+    public long getMin() {
+        return mMin;
+    }
+
+    public long getMax() {
+        return mMax;
+    }
+
+    /**
+     * @return max - min
+     */
+    public long getSpan() {
+        return mMax - mMin;
+    }
+
+    /**
+     * Change the allowed range. Current values will be constrained to the new range.
+     */
+    public void setRange(long min, long max) {
+        if (min > max || max - min < 0) {
+            throw new IllegalArgumentException("invalid range: [" + min + ", " + max + "]");
+        }
+
+        final int sequence = beginWrite();
+        try {
+            if (mMinDistance > max - min) {
+                mMinDistance = 0;
+            }
+            mMin = min;
+            mMax = max;
+            mMinDistance = roundMinDistance(mMinDistance);
+            store(mStart, mEnd);
+        } finally {
+            endWrite(sequence);
+        }
+    }
+
+    public long getStepSize() {
+        return mStepSize;
+    }
+
+    public void setStepSize(long value) {
+        final int sequence = beginWrite();
+        try {
+            mStepSize = Math.max(1, value);
+            mMinDistance = roundMinDistance(mMinDistance);
+            store(mStart, mEnd);
+        } finally {
+            endWrite(sequence);
+        }
+    }
+
+    public long getMinDistance() {
+        return mMinDistance;
+    }
+
+    /**
+     * Set the minimum distance between start and end. The value will be rounded to a multiple of
+     * the current step size, and it can't be greater than the distance between min and the last
+     * grid point.
+     */
+    public void setMinDistance(long value) {
+        if (value > getSpan()) {
+            throw new IllegalArgumentException("value cannot be greater than max - min");
+        }
+
+        final int sequence = beginWrite();
+        try {
+            mMinDistance = roundMinDistance(Math.max(0, value));
+            store(mStart, mEnd);
+        } finally {
+            endWrite(sequence);
+        }
+    }
+
+    /**
+     * Round the distance to a multiple of the step size, not greater than the span of the grid
+     * (which is 0 when the step is larger than the span).
+     */
+    private long roundMinDistance(long value) {
+        final long stepSize = mStepSize;
+        final long span = mMax - mMin;
+        final long gridSpan = span - span % stepSize;
+        if (value != 0 && value % stepSize != 0) {
+            value = Math.max(stepSize, value - (value % stepSize));
+        }
+        return Math.min(value, gridSpan);
+    }
+
+    private int beginWrite() {
+        while (true) {
+            final int sequence = mSequence;
+            if ((sequence & 1) == 0 && SEQUENCE.compareAndSet(this, sequence, sequence + 1)) {
+                return sequence;
+            }
+            Thread.yield();
+        }
+    }
+
+    private void endWrite(int sequence) {
+        mSequence = sequence + 2;
+    }
+
+    /**
+     * Must be called while holding the write sequence
+     */
+    private boolean store(long start, long end) {
+        final long min = mMin;
+        final long stepSize = mStepSize;
+        final long minDistance = mMinDistance;
+        // last grid point, so that clamping to max keeps the values snapped
+        final long max = mMax - (mMax - min) % stepSize;
+
+        start = MathUtils.constrain(start, min, max);
+        end = MathUtils.constrain(end, min, max);
+
+        if (stepSize > 1) {
+            start = snap(start, min, max, stepSize);
+            end = snap(end, min, max, stepSize);
+        }
+
+        if (end - start < minDistance) {
+            // never overflows, both values are in [min, max]
+            end = max - start < minDistance ? max : start + minDistance;
+        }
+
+        start = MathUtils.constrain(start, min, end);
+        end = MathUtils.constrain(end, start, max);
+
+        if (end - start < minDistance) {
+            // end has been clamped to max
+            start = Math.max(min, end - minDistance);
+        }
+
+        if (start == mStart && end == mEnd) {
+            return false;
+        }
+
+        mStart = start;
+        mEnd = end;
+        return true;
+    }
+
+    /**
+     * Round the value, which must be in [min, max], to the nearest min + k * step
+     * which is not greater than max. Ties are rounded down.
+     */
+    static long snap(long value, long min, long max, long step) {
+        final long remainder = (value - min) % step;
+        if (remainder == 0) {
+            return value;
+        }
+        final long up = step - remainder;
+        if (up < remainder && up <= max - value) {
+            return value + up;
+        }
+        return value - remainder;
+    }
+}
@@ -5,6 +5,10 @@ class MathUtils {
         return amount < low ? low : (amount > high ? high : amount);
     }
 
+    static long constrain(long amount, long low, long high) {
+        return amount < low ? low : (amount > high ? high : amount);
+    }
+
     static float constrain(float amount, float low, float high) {
         return amount < low ? low : (amount > high ? high : amount);
     }
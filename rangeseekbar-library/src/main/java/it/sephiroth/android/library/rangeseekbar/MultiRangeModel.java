@@ -0,0 +1,224 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import java.util.Arrays;
+
+/**
+ * Pure java model holding N ordered values, used by {@link MultiRangeSeekBar}.<br />
+ * Values are stored in a single int array which is always sorted and where two adjacent values
+ * are never closer than {@link #getMinDistance()}. Because of that the thumb nearest to a given
+ * value can be found with a binary search.<br />
+ * Unlike {@link RangeModel} this class is not thread safe, it must be used from the ui thread only.
+ */
+@SuppressWarnings ({"unused", "WeakerAccess"})
+public final class MultiRangeModel {
+    private int[] mValues;
+    private int mMax = 100;
+    private int mStepSize = 1;
+    private int mMinDistance = 0;
+
+    public MultiRangeModel(int count) {
+        mValues = new int[Math.max(1, count)];
+        spread();
+    }
+
+    public int getCount() {
+        return mValues.length;
+    }
+
+    /**
+     * Change the number of values. Values are evenly distributed between 0 and max.
+     * Nothing happens if count didn't change.
+     *
+     * @return true if the number of values changed
+     */
+    public boolean setCount(int count) {
+        count = Math.max(1, count);
+        if (count == mValues.length) {
+            return false;
+        }
+        if ((long) (count - 1) * mMinDistance > mMax) {
+            throw new IllegalArgumentException("count * minDistance cannot be greater than max value");
+        }
+        mValues = new int[count];
+        spread();
+        return true;
+    }
+
+    public int get(int index) {
+        return mValues[index];
+    }
+
+    /**
+     * Copy all the values into the passed array, which must be at least {@link #getCount()} long.
+     *
+     * @return the same array
+     */
+    public int[] get(int[] out) {
+        System.arraycopy(mValues, 0, out, 0, mValues.length);
+        return out;
+    }
+
+    /**
+     * Set the value at the given index. The value will be snapped to the step size and constrained
+     * between its two neighbours (taking into account the min distance).
+     *
+     * @return true if the value changed
+     */
+    public boolean set(int index, int value) {
+        final int[] values = mValues;
+        final int low = index > 0 ? values[index - 1] + mMinDistance : 0;
+        final int high = index < values.length - 1 ? values[index + 1] - mMinDistance : mMax;
+
+        if (mStepSize > 1) {
+            value = RangeModel.snap(value, mStepSize);
+        }
+        value = MathUtils.constrain(value, low, Math.max(low, high));
+
+        if (values[index] == value) {
+            return false;
+        }
+        values[index] = value;
+        return true;
+    }
+
+    /**
+     * Replace all the values. The array is sorted and the values are snapped and constrained,
+     * so that the model is always consistent.
+     *
+     * @param values new values, its length must be equal to {@link #getCount()}
+     */
+    public void set(int[] values) {
+        if (values.length != mValues.length) {
+            throw new IllegalArgumentException("expected " + mValues.length + " values, got " + values.length);
+        }
+        System.arraycopy(values, 0, mValues, 0, values.length);
+        Arrays.sort(mValues);
+        normalize();
+    }
+
+    public int getMax() {
+        return mMax;
+    }
+
+    /**
+     * Change the max value. Current values will be constrained to the new max.
+     *
+     * @return true if the max value changed
+     */
+    public boolean setMax(int max) {
+        max = Math.max(0, max);
+        if (max == mMax) {
+            return false;
+        }
+        if ((long) (mValues.length - 1) * mMinDistance > max) {
+            throw new IllegalArgumentException("max cannot be smaller than count * minDistance");
+        }
+        mMax = max;
+        normalize();
+        return true;
+    }
+
+    public int getStepSize() {
+        return mStepSize;
+    }
+
+    public void setStepSize(int value) {
+        mStepSize = Math.max(1, value);
+        setMinDistance(mMinDistance);
+    }
+
+    public int getMinDistance() {
+        return mMinDistance;
+    }
+
+    /**
+     * Set the minimum distance between two adjacent values. The value will be rounded to
+     * a multiple of the current step size.
+     */
+    public void setMinDistance(int value) {
+        value = Math.max(0, value);
+        if ((long) (mValues.length - 1) * value > mMax) {
+            throw new IllegalArgumentException("count * minDistance cannot be greater than max value");
+        }
+
+        // be sure is a multiple of stepsize
+        if (value != 0 && value % mStepSize != 0) {
+            value = Math.max(mStepSize, value - (value % mStepSize));
+        }
+
+        mMinDistance = value;
+        normalize();
+    }
+
+    /**
+     * Find the index of the value nearest to the given one, using a binary search.<br />
+     * When several values are stacked on the same position, the one which can move
+     * towards the passed value is returned: the last one if value is greater or equal, the
+     * first one otherwise.
+     */
+    public int nearestIndex(float value) {
+        final int[] values = mValues;
+        final int count = values.length;
+        final int ip = lowerBound(values, value);
+
+        final int index;
+        if (ip == count) {
+            index = count - 1;
+        } else if (ip == 0) {
+            index = 0;
+        } else {
+            index = (value - values[ip - 1]) < (values[ip] - value) ? ip - 1 : ip;
+        }
+
+        final int current = values[index];
+        if (value >= current) {
+            return lowerBound(values, current + 1) - 1;
+        } else {
+            return lowerBound(values, current);
+        }
+    }
+
+    /**
+     * @return the index of the first element greater or equal than value, or values.length
+     */
+    static int lowerBound(int[] values, float value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (values[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void spread() {
+        final int[] values = mValues;
+        final int count = values.length;
+        for (int i = 0; i < count; i++) {
+            values[i] = count > 1 ? (int) ((long) mMax * i / (count - 1)) : 0;
+        }
+        normalize();
+    }
+
+    /**
+     * Snap and constrain all the (sorted) values from left to right, leaving enough room
+     * on the right for the values which follow.
+     */
+    private void normalize() {
+        final int[] values = mValues;
+        final int count = values.length;
+        for (int i = 0; i < count; i++) {
+            int value = values[i];
+            if (mStepSize > 1) {
+                value = RangeModel.snap(value, mStepSize);
+            }
+            final int low = i > 0 ? values[i - 1] + mMinDistance : 0;
+            final int high = mMax - (count - 1 - i) * mMinDistance;
+            values[i] = MathUtils.constrain(value, low, Math.max(low, high));
+        }
+    }
+}
@@ -0,0 +1,660 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.LayerDrawable;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewConfiguration;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.graphics.drawable.DrawableCompat;
+
+/**
+ * SeekBar with N ordered thumbs, i.e. to select several bands in a single view.<br />
+ * Values are kept in a {@link MultiRangeModel} (a single int array), the thumb nearest to a touch
+ * is found with a binary search and the track, the selected segments and all the thumbs are drawn
+ * in a single pass using the same drawables, so N thumbs cost much less than N overlapping
+ * {@link RangeSeekBar}s.<br />
+ * Segments between thumbs (0, 1), (2, 3), ... are drawn as selected.<br />
+ * This view must be updated from the ui thread only.
+ */
+@SuppressWarnings ("unused")
+public class MultiRangeSeekBar extends View {
+    static final RangeLogger logger = new RangeLogger("MultiRangeSeekBar");
+
+    private static final int NO_THUMB = -1;
+    private static final int MAX_LEVEL = 10000;
+
+    public interface OnMultiRangeSeekBarChangeListener {
+
+        void onProgressChanged(MultiRangeSeekBar seekBar, int index, int value, boolean fromUser);
+
+        void onStartTrackingTouch(MultiRangeSeekBar seekBar, int index);
+
+        void onStopTrackingTouch(MultiRangeSeekBar seekBar, int index);
+    }
+
+    private final MultiRangeModel mModel;
+    /** Values before {@link #setProgress(int...)}, to notify only the changed ones */
+    private int[] mPreviousValues = new int[0];
+    private OnMultiRangeSeekBarChangeListener mOnMultiRangeSeekBarChangeListener;
+
+    private Drawable mProgressDrawable;
+    private Drawable mTrackBackground;
+    private Drawable mTrackProgress;
+
+    /** Drawable used for all the thumbs but the one being dragged */
+    private Drawable mThumb;
+    /** Copy of {@link #mThumb} used for the thumb being dragged, so it can have its own (pressed) state */
+    private Drawable mActiveThumb;
+    private int mThumbWidth;
+    private int mThumbHeight;
+
+    private int mMinHeight;
+    private int mMaxHeight;
+    private int mTrackTop;
+    private int mTrackHeight;
+    private int mThumbTop;
+
+    private int mScaledTouchSlop;
+    private float mTouchDownX;
+    private boolean mIsDragging;
+    private int mActiveIndex = NO_THUMB;
+    private boolean mIsUserSeekable = true;
+
+    public MultiRangeSeekBar(Context context) {
+        this(context, null);
+    }
+
+    public MultiRangeSeekBar(Context context, AttributeSet attrs) {
+        this(context, attrs, R.attr.sephiroth_multiRangeSeekBarStyle);
+    }
+
+    public MultiRangeSeekBar(Context context, AttributeSet attrs, int defStyleAttr) {
+        this(context, attrs, defStyleAttr, R.style.Sephiroth_Widget_MultiRangeSeekBar);
+    }
+
+    public MultiRangeSeekBar(Context context, AttributeSet attrs, int defStyleAttr, int defStyleRes) {
+        super(context, attrs, defStyleAttr, defStyleRes);
+
+        final TypedArray a = context.obtainStyledAttributes(
+            attrs, R.styleable.MultiRangeSeekBar, defStyleAttr, defStyleRes);
+
+        mModel = new MultiRangeModel(a.getInteger(R.styleable.MultiRangeSeekBar_range_multi_thumbCount, 2));
+        mModel.setMax(a.getInteger(R.styleable.MultiRangeSeekBar_android_max, mModel.getMax()));
+        mModel.setStepSize(a.getInteger(R.styleable.MultiRangeSeekBar_range_seekbar_stepSize, 1));
+        mModel.setMinDistance(a.getInteger(R.styleable.MultiRangeSeekBar_range_multi_minDistance, 0));
+
+        mMinHeight = a.getDimensionPixelSize(R.styleable.MultiRangeSeekBar_android_minHeight, 24);
+        mMaxHeight = a.getDimensionPixelSize(R.styleable.MultiRangeSeekBar_android_maxHeight, 48);
+
+        setProgressDrawable(a.getDrawable(R.styleable.MultiRangeSeekBar_android_progressDrawable));
+        setThumb(a.getDrawable(R.styleable.MultiRangeSeekBar_android_thumb));
+
+        a.recycle();
+
+        mScaledTouchSlop = ViewConfiguration.get(context).getScaledTouchSlop();
+    }
+
+    public void setOnMultiRangeSeekBarChangeListener(OnMultiRangeSeekBarChangeListener l) {
+        mOnMultiRangeSeekBarChangeListener = l;
+    }
+
+    public int getThumbCount() {
+        return mModel.getCount();
+    }
+
+    /**
+     * Change the number of thumbs. Values are reset and evenly distributed
+     * between 0 and max.
+     */
+    public void setThumbCount(int count) {
+        logger.info("setThumbCount(%d)", count);
+        if (mModel.setCount(count)) {
+            cancelDrag();
+            invalidate();
+        }
+    }
+
+    public int getProgress(int index) {
+        return mModel.get(index);
+    }
+
+    /**
+     * Copy all the current values into the passed array.
+     *
+     * @param out array of at least {@link #getThumbCount()} elements
+     * @return the same array
+     */
+    public int[] getProgress(@NonNull int[] out) {
+        return mModel.get(out);
+    }
+
+    /**
+     * Set the value of a single thumb. The value is constrained between the
+     * values of the two adjacent thumbs.
+     */
+    public void setThumbProgress(int index, int value) {
+        setProgressInternal(index, value, false);
+    }
+
+    /**
+     * Replace all the values. Values are sorted and constrained.
+     * The listener is notified only for the thumbs whose value changed.
+     *
+     * @param values new values, one per thumb
+     */
+    public void setProgress(@NonNull int... values) {
+        final int count = mModel.getCount();
+        if (mPreviousValues.length != count) {
+            mPreviousValues = new int[count];
+        }
+        final int[] previous = mModel.get(mPreviousValues);
+
+        mModel.set(values);
+        invalidate();
+
+        if (mOnMultiRangeSeekBarChangeListener != null) {
+            for (int i = 0; i < count; i++) {
+                final int value = mModel.get(i);
+                if (value != previous[i]) {
+                    mOnMultiRangeSeekBarChangeListener.onProgressChanged(this, i, value, false);
+                }
+            }
+        }
+    }
+
+    public int getMax() {
+        return mModel.getMax();
+    }
+
+    public void setMax(int max) {
+        logger.info("setMax(%d)", max);
+        if (mModel.setMax(max)) {
+            invalidate();
+        }
+    }
+
+    public int getStepSize() {
+        return mModel.getStepSize();
+    }
+
+    public void setStepSize(int value) {
+        mModel.setStepSize(value);
+        invalidate();
+    }
+
+    public int getMinDistance() {
+        return mModel.getMinDistance();
+    }
+
+    /**
+     * Set the minimum distance between two adjacent thumbs.
+     */
+    public void setMinDistance(int value) {
+        mModel.setMinDistance(value);
+        invalidate();
+    }
+
+    public boolean isUserSeekable() {
+        return mIsUserSeekable;
+    }
+
+    public void setUserSeekable(boolean value) {
+        mIsUserSeekable = value;
+    }
+
+    public Drawable getProgressDrawable() {
+        return mProgressDrawable;
+    }
+
+    /**
+     * Set the track drawable. If it is a LayerDrawable, its background layer is drawn along the whole
+     * track and its progress layer once for every selected segment.
+     */
+    public void setProgressDrawable(@Nullable Drawable d) {
+        if (mProgressDrawable == d) {
+            return;
+        }
+
+        if (mProgressDrawable != null) {
+            mProgressDrawable.setCallback(null);
+        }
+
+        mProgressDrawable = d;
+        mTrackBackground = d;
+        mTrackProgress = null;
+
+        if (d != null) {
+            d.setCallback(this);
+            DrawableCompat.setLayoutDirection(d, getLayoutDirection());
+            if (d.isStateful()) {
+                d.setState(getDrawableState());
+            }
+
+            if (d instanceof LayerDrawable) {
+                final LayerDrawable layer = (LayerDrawable) d;
+                final Drawable background = layer.findDrawableByLayerId(android.R.id.background);
+                final Drawable progress = layer.findDrawableByLayerId(android.R.id.progress);
+                mTrackBackground = background;
+                mTrackProgress = progress;
+
+                if (progress != null) {
+                    // clip and scale drawables are used as progress layers, show them entirely
+                    progress.setLevel(MAX_LEVEL);
+                }
+            }
+        }
+
+        updateTrackAndThumbPos(getWidth(), getHeight());
+        requestLayout();
+        invalidate();
+    }
+
+    public Drawable getThumb() {
+        return mThumb;
+    }
+
+    /**
+     * Set the drawable used for all the thumbs.
+     */
+    public void setThumb(@Nullable Drawable thumb) {
+        if (mThumb == thumb) {
+            return;
+        }
+
+        if (mThumb != null) {
+            mThumb.setCallback(null);
+        }
+        if (mActiveThumb != null) {
+            mActiveThumb.setCallback(null);
+        }
+
+        mThumb = thumb;
+        mActiveThumb = thumb;
+
+        if (thumb != null) {
+            final Drawable.ConstantState state = thumb.getConstantState();
+            if (state != null) {
+                mThumb = thumb.mutate();
+                mActiveThumb = state.newDrawable(getResources(), getContext().getTheme()).mutate();
+            }
+
+            mThumbWidth = thumb.getIntrinsicWidth();
+            mThumbHeight = thumb.getIntrinsicHeight();
+
+            final int[] drawableState = getDrawableState();
+            setupThumb(mThumb, drawableState);
+            setupThumb(mActiveThumb, drawableState);
+        } else {
+            mThumbWidth = 0;
+            mThumbHeight = 0;
+        }
+
+        updateTrackAndThumbPos(getWidth(), getHeight());
+        requestLayout();
+        invalidate();
+    }
+
+    private void setupThumb(Drawable thumb, int[] state) {
+        thumb.setCallback(this);
+        DrawableCompat.setLayoutDirection(thumb, getLayoutDirection());
+        if (thumb.isStateful()) {
+            thumb.setState(state);
+        }
+    }
+
+    @Override
+    protected boolean verifyDrawable(@NonNull Drawable who) {
+        return who == mThumb || who == mActiveThumb || who == mProgressDrawable || super.verifyDrawable(who);
+    }
+
+    @Override
+    public void invalidateDrawable(@NonNull Drawable drawable) {
+        if (verifyDrawable(drawable) && drawable != getBackground()) {
+            // the same drawable is drawn at several positions, its bounds don't tell where
+            invalidate();
+        } else {
+            super.invalidateDrawable(drawable);
+        }
+    }
+
+    @Override
+    public void jumpDrawablesToCurrentState() {
+        super.jumpDrawablesToCurrentState();
+
+        if (mThumb != null) {
+            mThumb.jumpToCurrentState();
+        }
+        if (mActiveThumb != null && mActiveThumb != mThumb) {
+            mActiveThumb.jumpToCurrentState();
+        }
+        if (mProgressDrawable != null) {
+            mProgressDrawable.jumpToCurrentState();
+        }
+    }
+
+    @Override
+    protected void drawableStateChanged() {
+        super.drawableStateChanged();
+
+        final int[] state = getDrawableState();
+
+        if (mProgressDrawable != null && mProgressDrawable.isStateful()) {
+            mProgressDrawable.setState(state);
+        }
+
+        // while dragging only the active thumb follows the (pressed) state
+        if (mActiveThumb != null && mActiveThumb.isStateful()) {
+            mActiveThumb.setState(state);
+        }
+        if (mActiveIndex == NO_THUMB && mThumb != null && mThumb != mActiveThumb && mThumb.isStateful()) {
+            mThumb.setState(state);
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int dw = 0;
+        int dh = 0;
+        if (mProgressDrawable != null) {
+            dw = mProgressDrawable.getIntrinsicWidth();
+            dh = Math.max(mMinHeight, Math.min(mMaxHeight, mProgressDrawable.getIntrinsicHeight()));
+        }
+        dh = Math.max(mThumbHeight, dh);
+        dw += getPaddingLeft() + getPaddingRight();
+        dh += getPaddingTop() + getPaddingBottom();
+
+        setMeasuredDimension(
+            resolveSizeAndState(dw, widthMeasureSpec, 0),
+            resolveSizeAndState(dh, heightMeasureSpec, 0)
+        );
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        updateTrackAndThumbPos(w, h);
+    }
+
+    private void updateTrackAndThumbPos(int w, int h) {
+        final int paddedHeight = h - getPaddingTop() - getPaddingBottom();
+        final int intrinsicHeight = mProgressDrawable != null ? mProgressDrawable.getIntrinsicHeight() : -1;
+
+        mTrackHeight = Math.min(paddedHeight, intrinsicHeight > 0 ? Math.min(mMaxHeight, intrinsicHeight) : mMaxHeight);
+        mTrackTop = getPaddingTop() + (paddedHeight - mTrackHeight) / 2;
+        mThumbTop = getPaddingTop() + (paddedHeight - mThumbHeight) / 2;
+
+        if (mTrackBackground != null) {
+            mTrackBackground.setBounds(0, 0, getTrackWidth(w), mTrackHeight);
+        }
+    }
+
+    private int getTrackWidth(int w) {
+        return Math.max(0, w - getPaddingLeft() - getPaddingRight());
+    }
+
+    /**
+     * @return the x position, relative to the track start, of the given value
+     */
+    private int getPositionForValue(int value, int trackWidth) {
+        final int max = mModel.getMax();
+        final int x = max > 0 ? (int) ((long) value * trackWidth / max) : 0;
+        return isLayoutRtl() ? trackWidth - x : x;
+    }
+
+    private float getValueForPosition(float x) {
+        final int trackWidth = getTrackWidth(getWidth());
+        if (trackWidth <= 0) {
+            return 0;
+        }
+        float scale = MathUtils.constrain((x - getPaddingLeft()) / trackWidth, 0f, 1f);
+        if (isLayoutRtl()) {
+            scale = 1f - scale;
+        }
+        return scale * mModel.getMax();
+    }
+
+    private boolean isLayoutRtl() {
+        return getLayoutDirection() == LAYOUT_DIRECTION_RTL;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+
+        final int count = mModel.getCount();
+        final int trackWidth = getTrackWidth(getWidth());
+
+        final int saveCount = canvas.save();
+        canvas.translate(getPaddingLeft(), mTrackTop);
+
+        if (mTrackBackground != null) {
+            mTrackBackground.draw(canvas);
+        }
+
+        if (mTrackProgress != null) {
+            for (int i = 0; i + 1 < count; i += 2) {
+                final int x1 = getPositionForValue(mModel.get(i), trackWidth);
+                final int x2 = getPositionForValue(mModel.get(i + 1), trackWidth);
+                mTrackProgress.setBounds(Math.min(x1, x2), 0, Math.max(x1, x2), mTrackHeight);
+                mTrackProgress.draw(canvas);
+            }
+        }
+
+        if (mThumb != null) {
+            canvas.translate(-mThumbWidth / 2f, mThumbTop - mTrackTop);
+
+            for (int i = 0; i < count; i++) {
+                if (i != mActiveIndex) {
+                    drawThumb(canvas, mThumb, getPositionForValue(mModel.get(i), trackWidth));
+                }
+            }
+
+            // the active thumb is drawn last, on top of the others
+            if (mActiveIndex != NO_THUMB) {
+                drawThumb(canvas, mActiveThumb, getPositionForValue(mModel.get(mActiveIndex), trackWidth));
+            }
+        }
+
+        canvas.restoreToCount(saveCount);
+    }
+
+    private void drawThumb(Canvas canvas, Drawable thumb, int x) {
+        thumb.setBounds(x, 0, x + mThumbWidth, mThumbHeight);
+        thumb.draw(canvas);
+    }
+
+    @SuppressLint ("ClickableViewAccessibility")
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (!mIsUserSeekable || !isEnabled() || mThumb == null) {
+            return false;
+        }
+
+        switch (event.getAction()) {
+            case MotionEvent.ACTION_DOWN:
+                if (SephirothViewCompat.isInScrollingContainer(this)) {
+                    mTouchDownX = event.getX();
+                } else {
+                    startDrag(event);
+                }
+                break;
+
+            case MotionEvent.ACTION_MOVE:
+                if (mIsDragging) {
+                    trackTouchEvent(event);
+                } else if (Math.abs(event.getX() - mTouchDownX) > mScaledTouchSlop) {
+                    startDrag(event);
+                }
+                break;
+
+            case MotionEvent.ACTION_UP:
+                if (!mIsDragging) {
+                    // tap-seek of the nearest thumb
+                    startDrag(event);
+                }
+                trackTouchEvent(event);
+                stopDrag();
+                performClick();
+                break;
+
+            case MotionEvent.ACTION_CANCEL:
+                stopDrag();
+                break;
+        }
+        return true;
+    }
+
+    private void startDrag(MotionEvent event) {
+        mActiveIndex = mModel.nearestIndex(getValueForPosition(event.getX()));
+        logger.verbose("startDrag: %d", mActiveIndex);
+
+        mIsDragging = true;
+        setPressed(true);
+        updateBackgroundHotspot(event.getX(), event.getY());
+
+        if (mOnMultiRangeSeekBarChangeListener != null) {
+            mOnMultiRangeSeekBarChangeListener.onStartTrackingTouch(this, mActiveIndex);
+        }
+
+        trackTouchEvent(event);
+
+        if (getParent() != null) {
+            getParent().requestDisallowInterceptTouchEvent(true);
+        }
+    }
+
+    private void stopDrag() {
+        if (!mIsDragging) {
+            return;
+        }
+
+        final int index = mActiveIndex;
+        mIsDragging = false;
+        mActiveIndex = NO_THUMB;
+        setPressed(false);
+        invalidate();
+
+        if (mOnMultiRangeSeekBarChangeListener != null) {
+            mOnMultiRangeSeekBarChangeListener.onStopTrackingTouch(this, index);
+        }
+    }
+
+    private void cancelDrag() {
+        if (mIsDragging) {
+            mIsDragging = false;
+            mActiveIndex = NO_THUMB;
+            setPressed(false);
+        }
+    }
+
+    private void trackTouchEvent(MotionEvent event) {
+        if (mActiveIndex == NO_THUMB) {
+            return;
+        }
+        updateBackgroundHotspot(event.getX(), event.getY());
+        setProgressInternal(mActiveIndex, Math.round(getValueForPosition(event.getX())), true);
+    }
+
+    private void updateBackgroundHotspot(float x, float y) {
+        final Drawable background = getBackground();
+        if (background != null) {
+            final int left = (int) x - mThumbWidth / 2;
+            final int top = mThumbTop;
+            background.setBounds(left, top, left + mThumbWidth, top + mThumbHeight);
+            DrawableCompat.setHotspotBounds(background, left, top, left + mThumbWidth, top + mThumbHeight);
+            DrawableCompat.setHotspot(background, x, y);
+        }
+    }
+
+    private boolean setProgressInternal(int index, int value, boolean fromUser) {
+        final int previous = mModel.get(index);
+        if (!mModel.set(index, value)) {
+            return false;
+        }
+
+        // only the span between the old and the new thumb position changed
+        final int trackWidth = getTrackWidth(getWidth());
+        final int x1 = getPositionForValue(previous, trackWidth);
+        final int x2 = getPositionForValue(mModel.get(index), trackWidth);
+        final int left = getPaddingLeft() + Math.min(x1, x2) - mThumbWidth / 2 - 1;
+        final int right = getPaddingLeft() + Math.max(x1, x2) + mThumbWidth / 2 + 1;
+        invalidate(left, 0, right, getHeight());
+
+        if (mOnMultiRangeSeekBarChangeListener != null) {
+            mOnMultiRangeSeekBarChangeListener.onProgressChanged(this, index, mModel.get(index), fromUser);
+        }
+        return true;
+    }
+
+    static class SavedState extends BaseSavedState {
+        int[] values;
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        private SavedState(Parcel in) {
+            super(in);
+            values = in.createIntArray();
+        }
+
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeIntArray(values);
+        }
+
+        public static final Parcelable.Creator<SavedState> CREATOR
+            = new Parcelable.Creator<SavedState>() {
+            public SavedState createFromParcel(Parcel in) {
+                return new SavedState(in);
+            }
+
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
+    }
+
+    @Override
+    public Parcelable onSaveInstanceState() {
+        Parcelable superState = super.onSaveInstanceState();
+        SavedState ss = new SavedState(superState);
+
+        ss.values = mModel.get(new int[mModel.getCount()]);
+
+        return ss;
+    }
+
+    @Override
+    public void onRestoreInstanceState(Parcelable state) {
+        SavedState ss = (SavedState) state;
+        super.onRestoreInstanceState(ss.getSuperState());
+
+        if (ss.values != null && ss.values.length > 0) {
+            setThumbCount(ss.values.length);
+            setProgress(ss.values);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        cancelDrag();
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    public CharSequence getAccessibilityClassName() {
+        return MultiRangeSeekBar.class.getName();
+    }
+}
@@ -0,0 +1,221 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import android.animation.TimeInterpolator;
+import android.view.Choreographer;
+
+import java.util.Arrays;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Process wide driver of the progress animations, used from the ui thread only.<br />
+ * A single {@link Choreographer} frame callback advances every running {@link ProgressAnimator}: the
+ * state of the animations is kept in parallel primitive arrays indexed by the animator slot, so a
+ * frame is a plain loop over them. All the bars are updated in the same animation callback, before
+ * the traversal, so their invalidations are drawn together in that frame.<br />
+ * Starting, restarting and finishing an animation don't allocate; the arrays only grow when more
+ * animations than ever before run at the same time.
+ */
+final class ProgressAnimationDriver {
+
+    interface FrameScheduler {
+        /**
+         * Invoke {@link #doFrame(long)} on the next frame
+         */
+        void scheduleFrame(@NonNull ProgressAnimationDriver driver);
+    }
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final long UNSET = -1;
+
+    private static final FrameScheduler CHOREOGRAPHER_SCHEDULER = new FrameScheduler() {
+        @Override
+        public void scheduleFrame(@NonNull ProgressAnimationDriver driver) {
+            Choreographer.getInstance().postFrameCallback(driver.mFrameCallback);
+        }
+    };
+
+    private static ProgressAnimationDriver sInstance;
+
+    private final FrameScheduler mScheduler;
+    private final Choreographer.FrameCallback mFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            ProgressAnimationDriver.this.doFrame(frameTimeNanos);
+        }
+    };
+
+    private ProgressAnimator[] mAnimators = new ProgressAnimator[INITIAL_CAPACITY];
+    /** Frame time of the first frame, in nanos, {@link #UNSET} until the first frame */
+    private long[] mStartTimes = new long[INITIAL_CAPACITY];
+    private long[] mDurations = new long[INITIAL_CAPACITY];
+    /** fromStart, fromEnd, toStart, toEnd of each slot */
+    private float[] mValues = new float[INITIAL_CAPACITY * 4];
+    private int mCount;
+
+    private boolean mFrameScheduled;
+    /** While a frame is running removed slots are only cleared, and compacted at the end */
+    private boolean mDispatching;
+
+    static ProgressAnimationDriver getInstance() {
+        if (sInstance == null) {
+            sInstance = new ProgressAnimationDriver(CHOREOGRAPHER_SCHEDULER);
+        }
+        return sInstance;
+    }
+
+    ProgressAnimationDriver(@NonNull FrameScheduler scheduler) {
+        mScheduler = scheduler;
+    }
+
+    /**
+     * Start the animation, or restart it from the passed values if already running.
+     * The start time is the time of the next frame.
+     */
+    void start(
+        @NonNull ProgressAnimator animator, float fromStart, float fromEnd, float toStart, float toEnd,
+        long durationMillis) {
+        int slot = animator.mSlot;
+        if (slot < 0) {
+            ensureCapacity(mCount + 1);
+            slot = mCount++;
+            mAnimators[slot] = animator;
+            animator.mSlot = slot;
+        }
+
+        mStartTimes[slot] = UNSET;
+        mDurations[slot] = durationMillis * 1_000_000;
+        final int base = slot * 4;
+        mValues[base] = fromStart;
+        mValues[base + 1] = fromEnd;
+        mValues[base + 2] = toStart;
+        mValues[base + 3] = toEnd;
+
+        if (!mFrameScheduled) {
+            mFrameScheduled = true;
+            mScheduler.scheduleFrame(this);
+        }
+    }
+
+    /**
+     * Stop the animation without notifying its end
+     */
+    void cancel(@NonNull ProgressAnimator animator) {
+        if (animator.mSlot >= 0) {
+            remove(animator.mSlot);
+        }
+    }
+
+    /**
+     * @return true if the animator is running towards the given values
+     */
+    boolean isAnimatingTo(@NonNull ProgressAnimator animator, float toStart, float toEnd) {
+        final int slot = animator.mSlot;
+        return slot >= 0 && mValues[slot * 4 + 2] == toStart && mValues[slot * 4 + 3] == toEnd;
+    }
+
+    int getRunningCount() {
+        return mCount;
+    }
+
+    void doFrame(long frameTimeNanos) {
+        mFrameScheduled = false;
+        mDispatching = true;
+
+        // animations started by the callbacks begin at the next frame
+        final int count = mCount;
+        for (int i = 0; i < count; i++) {
+            final ProgressAnimator animator = mAnimators[i];
+            if (animator == null) {
+                continue;
+            }
+
+            if (mStartTimes[i] == UNSET) {
+                mStartTimes[i] = frameTimeNanos;
+            }
+
+            final long duration = mDurations[i];
+            final float fraction = duration > 0
+                ? Math.min(1f, (float) (frameTimeNanos - mStartTimes[i]) / duration)
+                : 1f;
+            final boolean finished = fraction >= 1f;
+
+            final TimeInterpolator interpolator = animator.mInterpolator;
+            final float value = interpolator != null ? interpolator.getInterpolation(fraction) : fraction;
+
+            final int base = i * 4;
+            final float start = mValues[base] + (mValues[base + 2] - mValues[base]) * value;
+            final float end = mValues[base + 1] + (mValues[base + 3] - mValues[base + 1]) * value;
+
+            if (finished) {
+                remove(i);
+            }
+
+            animator.mCallback.onProgressAnimationUpdate(start, end);
+
+            if (finished && animator.mSlot < 0) {
+                animator.mCallback.onProgressAnimationEnd();
+            }
+        }
+
+        mDispatching = false;
+        compact();
+
+        if (mCount > 0 && !mFrameScheduled) {
+            mFrameScheduled = true;
+            mScheduler.scheduleFrame(this);
+        }
+    }
+
+    private void remove(int slot) {
+        mAnimators[slot].mSlot = -1;
+        mAnimators[slot] = null;
+
+        if (mDispatching) {
+            return;
+        }
+
+        // move the last slot in the hole
+        final int last = --mCount;
+        if (slot != last) {
+            move(last, slot);
+        }
+        mAnimators[last] = null;
+    }
+
+    /**
+     * Remove the slots cleared during a frame, preserving the order of the others
+     */
+    private void compact() {
+        int write = 0;
+        for (int read = 0; read < mCount; read++) {
+            if (mAnimators[read] != null) {
+                if (read != write) {
+                    move(read, write);
+                    mAnimators[read] = null;
+                }
+                write++;
+            }
+        }
+        mCount = write;
+    }
+
+    private void move(int from, int to) {
+        final ProgressAnimator animator = mAnimators[from];
+        mAnimators[to] = animator;
+        animator.mSlot = to;
+        mStartTimes[to] = mStartTimes[from];
+        mDurations[to] = mDurations[from];
+        System.arraycopy(mValues, from * 4, mValues, to * 4, 4);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > mAnimators.length) {
+            final int length = Math.max(capacity, mAnimators.length * 2);
+            mAnimators = Arrays.copyOf(mAnimators, length);
+            mStartTimes = Arrays.copyOf(mStartTimes, length);
+            mDurations = Arrays.copyOf(mDurations, length);
+            mValues = Arrays.copyOf(mValues, length * 4);
+        }
+    }
+}
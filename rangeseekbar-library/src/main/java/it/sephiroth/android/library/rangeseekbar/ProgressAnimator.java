@@ -0,0 +1,81 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import android.animation.TimeInterpolator;
+import android.animation.ValueAnimator;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Animation of both the start and the end visual progress of a {@link RangeProgressBar}.<br />
+ * A new target set while the animation is running restarts it from the current visual position, so
+ * rapid updates never leave several animations fighting over the same values.<br />
+ * The frames are driven by the shared {@link ProgressAnimationDriver}, which keeps the animation
+ * state: this object is only the handle of the bar and nothing is allocated after construction.
+ */
+final class ProgressAnimator {
+
+    interface Callback {
+        void onProgressAnimationUpdate(float start, float end);
+
+        /**
+         * The animation reached its target. Not invoked when the animation is cancelled or restarted.
+         */
+        void onProgressAnimationEnd();
+    }
+
+    private final ProgressAnimationDriver mDriver;
+    final Callback mCallback;
+    /** Null means linear */
+    TimeInterpolator mInterpolator;
+    /** Slot in the driver, -1 when not running */
+    int mSlot = -1;
+    private long mDuration = 300;
+
+    ProgressAnimator(Callback callback) {
+        this(ProgressAnimationDriver.getInstance(), callback);
+    }
+
+    ProgressAnimator(@NonNull ProgressAnimationDriver driver, Callback callback) {
+        mDriver = driver;
+        mCallback = callback;
+    }
+
+    void setDuration(long duration) {
+        mDuration = duration;
+    }
+
+    void setInterpolator(TimeInterpolator interpolator) {
+        mInterpolator = interpolator;
+    }
+
+    /**
+     * Animate from the given visual values to the new target values.
+     * If the animation is already running it will be restarted from the passed (current) values.
+     */
+    void animateTo(float fromStart, float fromEnd, float toStart, float toEnd) {
+        if (mDriver.isAnimatingTo(this, toStart, toEnd)) {
+            // already heading there
+            return;
+        }
+        mDriver.start(this, fromStart, fromEnd, toStart, toEnd, getScaledDuration());
+    }
+
+    void cancel() {
+        mDriver.cancel(this);
+    }
+
+    boolean isRunning() {
+        return mSlot >= 0;
+    }
+
+    /**
+     * Duration scaled by the system animator duration scale, as a ValueAnimator would do
+     */
+    private long getScaledDuration() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            return (long) (mDuration * ValueAnimator.getDurationScale());
+        }
+        return mDuration;
+    }
+}
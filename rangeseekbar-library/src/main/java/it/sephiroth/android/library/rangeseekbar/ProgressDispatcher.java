@@ -0,0 +1,188 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+/**
+ * Applies the dispatch policies (throttle, debounce, distinct) to the progress changes of a
+ * {@link RangeSeekBar} before they reach the listeners, and detects when the range is settled.<br />
+ * Changes which are not delivered immediately are folded into a single pending change (latest
+ * values win, fromUser is true if any of them came from the user) and delivered by one reusable
+ * runnable, so no allocation happens per event.<br />
+ * <ul>
+ * <li>throttle: at most N deliveries per second, the last change is delivered when the interval expires</li>
+ * <li>debounce: the pending change is delivered once no new change arrived for the given time.
+ * When combined with throttle, the throttled deliveries continue while the values change</li>
+ * <li>distinct: changes equal to the last delivered values are dropped</li>
+ * </ul>
+ * Must be used from the ui thread only.
+ */
+final class ProgressDispatcher implements Runnable {
+
+    interface Target {
+        void dispatchProgressChanged(int start, int end, boolean fromUser);
+
+        void dispatchRangeSettled(int start, int end);
+    }
+
+    interface Scheduler {
+        long now();
+
+        void schedule(Runnable runnable, long delayMillis);
+
+        void cancel(Runnable runnable);
+    }
+
+    private static final int NONE = Integer.MIN_VALUE;
+
+    private final Target mTarget;
+    private final Scheduler mScheduler;
+
+    private long mThrottleInterval;
+    private long mDebounceDelay;
+    private boolean mDistinct;
+
+    private boolean mHasPending;
+    private int mPendingStart;
+    private int mPendingEnd;
+    private boolean mPendingFromUser;
+    private boolean mScheduled;
+
+    private long mLastDispatchTime = Long.MIN_VALUE;
+    private int mLastStart = NONE;
+    private int mLastEnd = NONE;
+    private int mSettledStart = NONE;
+    private int mSettledEnd = NONE;
+
+    ProgressDispatcher(Target target, Scheduler scheduler) {
+        mTarget = target;
+        mScheduler = scheduler;
+    }
+
+    /**
+     * @param maxPerSecond max number of deliveries per second, 0 to disable
+     */
+    void setThrottle(int maxPerSecond) {
+        mThrottleInterval = maxPerSecond > 0 ? Math.max(1, 1000 / maxPerSecond) : 0;
+    }
+
+    long getThrottleInterval() {
+        return mThrottleInterval;
+    }
+
+    /**
+     * @param delayMillis idle time before a change is delivered, 0 to disable
+     */
+    void setDebounce(long delayMillis) {
+        mDebounceDelay = Math.max(0, delayMillis);
+    }
+
+    long getDebounce() {
+        return mDebounceDelay;
+    }
+
+    void setDistinct(boolean distinct) {
+        mDistinct = distinct;
+    }
+
+    boolean isDistinct() {
+        return mDistinct;
+    }
+
+    void onProgressChanged(int start, int end, boolean fromUser) {
+        mPendingFromUser = (mHasPending && mPendingFromUser) || fromUser;
+        mPendingStart = start;
+        mPendingEnd = end;
+        mHasPending = true;
+
+        if (mDistinct && start == mLastStart && end == mLastEnd) {
+            // back to the delivered values, nothing to deliver
+            mHasPending = false;
+            cancelScheduled();
+            return;
+        }
+
+        final long throttle = mThrottleInterval;
+        final long debounce = mDebounceDelay;
+
+        if (throttle == 0 && debounce == 0) {
+            deliverPending();
+            return;
+        }
+
+        final long now = mScheduler.now();
+
+        if (throttle > 0 && (mLastDispatchTime == Long.MIN_VALUE || now - mLastDispatchTime >= throttle)) {
+            cancelScheduled();
+            deliverPending();
+        } else if (debounce > 0) {
+            cancelScheduled();
+            schedule(debounce);
+        } else if (!mScheduled) {
+            schedule(mLastDispatchTime + throttle - now);
+        }
+    }
+
+    /**
+     * The range is settled (tracking stopped, key press or animation ended): the pending
+     * change is delivered right away, followed by the settled callback if the range differs from
+     * the last settled one.
+     */
+    void settle(int start, int end) {
+        flush();
+
+        if (start != mSettledStart || end != mSettledEnd) {
+            mSettledStart = start;
+            mSettledEnd = end;
+            mTarget.dispatchRangeSettled(start, end);
+        }
+    }
+
+    /**
+     * Deliver the pending change, if any, right away
+     */
+    void flush() {
+        cancelScheduled();
+        if (mHasPending) {
+            deliverPending();
+        }
+    }
+
+    /**
+     * Forget the last delivered and settled values, i.e. after the policies changed
+     */
+    void reset() {
+        mLastStart = NONE;
+        mLastEnd = NONE;
+        mSettledStart = NONE;
+        mSettledEnd = NONE;
+        mLastDispatchTime = Long.MIN_VALUE;
+    }
+
+    @Override
+    public void run() {
+        mScheduled = false;
+        if (mHasPending) {
+            deliverPending();
+        }
+    }
+
+    private void schedule(long delay) {
+        mScheduled = true;
+        mScheduler.schedule(this, Math.max(0, delay));
+    }
+
+    private void cancelScheduled() {
+        if (mScheduled) {
+            mScheduled = false;
+            mScheduler.cancel(this);
+        }
+    }
+
+    private void deliverPending() {
+        mHasPending = false;
+        mLastStart = mPendingStart;
+        mLastEnd = mPendingEnd;
+        if (mThrottleInterval > 0) {
+            mLastDispatchTime = mScheduler.now();
+        }
+        mTarget.dispatchProgressChanged(mPendingStart, mPendingEnd, mPendingFromUser);
+    }
+}
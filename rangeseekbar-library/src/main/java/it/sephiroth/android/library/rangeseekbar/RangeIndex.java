@@ -0,0 +1,198 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Sorted index of item values, answering "how many items are in [start, end]" in O(log n).<br />
+ * The values are copied and sorted once, on a background executor. Until the sort is done
+ * {@link #isReady()} is false and {@link #count(long, long)} returns {@link #NOT_READY}. After that the
+ * index is immutable, so it can be queried from any thread without locks.<br />
+ * Attach it to a seek bar with {@link RangeSeekBar#setRangeIndex(RangeIndex, RangeSeekBar.OnRangeCountChangeListener)}
+ * to get a live count while the user drags, without filtering the dataset on every change.
+ */
+@SuppressWarnings ({"unused", "WeakerAccess"})
+public final class RangeIndex {
+    /** Returned by {@link #count(long, long)} while the values are being sorted. */
+    public static final int NOT_READY = -1;
+
+    private static ExecutorService sDefaultExecutor;
+
+    private final int mSize;
+    /** Sorted values, only one of the two is used. Published once sorted. */
+    private volatile int[] mIntValues;
+    private volatile long[] mLongValues;
+    private final ListenerList<Runnable> mOnReadyListeners = new ListenerList<>(new Runnable[0]);
+
+    /**
+     * Create an index of int values, sorted on a shared background thread.
+     * The array is copied, the caller can reuse it.
+     */
+    public RangeIndex(@NonNull int[] values) {
+        this(values, getDefaultExecutor());
+    }
+
+    public RangeIndex(@NonNull int[] values, @NonNull Executor executor) {
+        final int[] copy = values.clone();
+        mSize = copy.length;
+        executor.execute(() -> {
+            Arrays.sort(copy);
+            mIntValues = copy;
+            notifyReady();
+        });
+    }
+
+    /**
+     * Create an index of long values (i.e. epoch milliseconds), sorted on a shared background thread.
+     * The array is copied, the caller can reuse it.
+     */
+    public RangeIndex(@NonNull long[] values) {
+        this(values, getDefaultExecutor());
+    }
+
+    public RangeIndex(@NonNull long[] values, @NonNull Executor executor) {
+        final long[] copy = values.clone();
+        mSize = copy.length;
+        executor.execute(() -> {
+            Arrays.sort(copy);
+            mLongValues = copy;
+            notifyReady();
+        });
+    }
+
+    /**
+     * @return the number of items in the index
+     */
+    public int size() {
+        return mSize;
+    }
+
+    public boolean isReady() {
+        return mIntValues != null || mLongValues != null;
+    }
+
+    /**
+     * Add a listener invoked, on the background thread, once the values have been sorted.
+     * If the index is already sorted the listener is invoked immediately. When the two happen
+     * at the same time the listener can be invoked twice.<br />
+     * The index can be shared, every listener must be removed with {@link #removeOnReadyListener(Runnable)}
+     * by its owner.
+     */
+    public void addOnReadyListener(@NonNull Runnable listener) {
+        if (mOnReadyListeners.add(listener) && isReady()) {
+            listener.run();
+        }
+    }
+
+    public void removeOnReadyListener(@NonNull Runnable listener) {
+        mOnReadyListeners.remove(listener);
+    }
+
+    private void notifyReady() {
+        final Runnable[] listeners = mOnReadyListeners.get();
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].run();
+        }
+    }
+
+    /**
+     * Count the items whose value is in [start, end], both inclusive.
+     *
+     * @return the number of items or {@link #NOT_READY} if the values are not sorted yet
+     */
+    public int count(long start, long end) {
+        if (start > end) {
+            return 0;
+        }
+
+        final int[] intValues = mIntValues;
+        if (intValues != null) {
+            return upperBound(intValues, end) - lowerBound(intValues, start);
+        }
+
+        final long[] longValues = mLongValues;
+        if (longValues != null) {
+            return upperBound(longValues, end) - lowerBound(longValues, start);
+        }
+
+        return NOT_READY;
+    }
+
+    /**
+     * @return index of the first element greater or equal than value
+     */
+    static int lowerBound(int[] values, long value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (values[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return index of the first element greater than value
+     */
+    static int upperBound(int[] values, long value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (values[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    static int lowerBound(long[] values, long value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (values[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    static int upperBound(long[] values, long value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (values[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static synchronized Executor getDefaultExecutor() {
+        if (sDefaultExecutor == null) {
+            sDefaultExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "RangeIndex");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+        }
+        return sDefaultExecutor;
+    }
+}
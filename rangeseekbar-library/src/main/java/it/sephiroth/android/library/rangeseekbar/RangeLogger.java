@@ -0,0 +1,207 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import it.sephiroth.android.library.simplelogger.LoggerFactory;
+import it.sephiroth.android.library.simplelogger.LoggerFactory.LoggerType;
+
+/**
+ * Thin wrapper around the simple-logger used by the widgets.<br />
+ * {@link #ENABLED} is a compile time constant (false in release builds), so every call is
+ * stripped by the compiler. In debug builds each call first checks the current level and only then
+ * boxes its arguments: the fixed-arity overloads must be used from the draw and touch paths
+ * so that a disabled level never allocates a varargs array.<br />
+ * The class is public because subclasses of the widgets, also outside of this package, use the
+ * protected {@code logger} field of {@link RangeProgressBar}.
+ */
+@SuppressWarnings ({"unused", "WeakerAccess"})
+public final class RangeLogger {
+    static final boolean ENABLED = BuildConfig.LOG_ENABLED;
+
+    public static final int VERBOSE = 2;
+    public static final int DEBUG = 3;
+    public static final int INFO = 4;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+    public static final int NONE = Integer.MAX_VALUE;
+
+    private final LoggerFactory.Logger mDelegate;
+    private volatile int mLevel;
+
+    RangeLogger(String tag) {
+        this(LoggerFactory.getLogger(tag, ENABLED ? LoggerType.Console : LoggerType.Null), ENABLED ? VERBOSE : NONE);
+    }
+
+    RangeLogger(LoggerFactory.Logger delegate, int level) {
+        mDelegate = delegate;
+        mLevel = level;
+    }
+
+    public void setLevel(int level) {
+        mLevel = level;
+    }
+
+    public int getLevel() {
+        return mLevel;
+    }
+
+    public boolean isLoggable(int level) {
+        return ENABLED && level >= mLevel;
+    }
+
+    // verbose
+
+    public void verbose(String message) {
+        if (ENABLED && VERBOSE >= mLevel) {
+            mDelegate.verbose(message);
+        }
+    }
+
+    public void verbose(String format, Object arg0) {
+        if (ENABLED && VERBOSE >= mLevel) {
+            mDelegate.verbose(format, arg0);
+        }
+    }
+
+    public void verbose(String format, int arg0) {
+        if (ENABLED && VERBOSE >= mLevel) {
+            mDelegate.verbose(format, arg0);
+        }
+    }
+
+    public void verbose(String format, int arg0, int arg1) {
+        if (ENABLED && VERBOSE >= mLevel) {
+            mDelegate.verbose(format, arg0, arg1);
+        }
+    }
+
+    public void verbose(String format, float arg0, float arg1) {
+        if (ENABLED && VERBOSE >= mLevel) {
+            mDelegate.verbose(format, arg0, arg1);
+        }
+    }
+
+    public void verbose(String format, Object... args) {
+        if (ENABLED && VERBOSE >= mLevel) {
+            mDelegate.verbose(format, args);
+        }
+    }
+
+    // debug
+
+    public void debug(String message) {
+        if (ENABLED && DEBUG >= mLevel) {
+            mDelegate.debug(message);
+        }
+    }
+
+    public void debug(String format, Object arg0) {
+        if (ENABLED && DEBUG >= mLevel) {
+            mDelegate.debug(format, arg0);
+        }
+    }
+
+    public void debug(String format, int arg0, int arg1) {
+        if (ENABLED && DEBUG >= mLevel) {
+            mDelegate.debug(format, arg0, arg1);
+        }
+    }
+
+    public void debug(String format, float arg0, float arg1) {
+        if (ENABLED && DEBUG >= mLevel) {
+            mDelegate.debug(format, arg0, arg1);
+        }
+    }
+
+    public void debug(String format, boolean arg0, Object arg1) {
+        if (ENABLED && DEBUG >= mLevel) {
+            mDelegate.debug(format, arg0, arg1);
+        }
+    }
+
+    public void debug(String format, Object... args) {
+        if (ENABLED && DEBUG >= mLevel) {
+            mDelegate.debug(format, args);
+        }
+    }
+
+    // info
+
+    public void info(String message) {
+        if (ENABLED && INFO >= mLevel) {
+            mDelegate.info(message);
+        }
+    }
+
+    public void info(String format, Object arg0) {
+        if (ENABLED && INFO >= mLevel) {
+            mDelegate.info(format, arg0);
+        }
+    }
+
+    public void info(String format, int arg0) {
+        if (ENABLED && INFO >= mLevel) {
+            mDelegate.info(format, arg0);
+        }
+    }
+
+    public void info(String format, int arg0, int arg1) {
+        if (ENABLED && INFO >= mLevel) {
+            mDelegate.info(format, arg0, arg1);
+        }
+    }
+
+    public void info(String format, float arg0, float arg1) {
+        if (ENABLED && INFO >= mLevel) {
+            mDelegate.info(format, arg0, arg1);
+        }
+    }
+
+    public void info(String format, long arg0, long arg1) {
+        if (ENABLED && INFO >= mLevel) {
+            mDelegate.info(format, arg0, arg1);
+        }
+    }
+
+    public void info(String format, int arg0, int arg1, boolean arg2, boolean arg3) {
+        if (ENABLED && INFO >= mLevel) {
+            mDelegate.info(format, arg0, arg1, arg2, arg3);
+        }
+    }
+
+    public void info(String format, int arg0, float arg1, Object arg2, int arg3) {
+        if (ENABLED && INFO >= mLevel) {
+            mDelegate.info(format, arg0, arg1, arg2, arg3);
+        }
+    }
+
+    public void info(String format, Object... args) {
+        if (ENABLED && INFO >= mLevel) {
+            mDelegate.info(format, args);
+        }
+    }
+
+    // warn and error are never used in the hot paths
+
+    public void warn(String message) {
+        if (ENABLED && WARN >= mLevel) {
+            mDelegate.warn(message);
+        }
+    }
+
+    public void warn(String format, Object... args) {
+        if (ENABLED && WARN >= mLevel) {
+            mDelegate.warn(format, args);
+        }
+    }
+
+    public void error(String message) {
+        if (ENABLED && ERROR >= mLevel) {
+            mDelegate.error(message);
+        }
+    }
+
+    public void error(String format, Object... args) {
+        if (ENABLED && ERROR >= mLevel) {
+            mDelegate.error(format, args);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Pure java model holding the (start, end) range and the rules used to snap, clamp and
+ * keep the minimum distance between the two values.<br />
+ * This class doesn't depend on the android framework and doesn't allocate, so it can be
+ * used (and benchmarked) outside of the view.<br />
+ * The result of {@link #apply(int, int)} is returned as a packed long, use
+ * {@link #start(long)} and {@link #end(long)} to read the values.<br />
+ * The (start, end) pair is published as a single volatile long and updated with CAS, so the model can be
+ * written from any thread without locks and {@link #getRange()} always returns a consistent pair where
+ * start is never greater than end.
+ */
+@SuppressWarnings ({"unused", "WeakerAccess"})
+public final class RangeModel {
+    /** Value used when no start-max or end-min boundary has been set. */
+    public static final int NO_BOUNDARY = -1;
+
+    private static final AtomicLongFieldUpdater<RangeModel> RANGE =
+        AtomicLongFieldUpdater.newUpdater(RangeModel.class, "mRange");
+
+    private volatile long mRange = pack(0, 100);
+    private volatile int mMax = 100;
+    private volatile int mStepSize = 1;
+    private volatile int mMinMaxStepSize = 0;
+    private volatile int mStartMax = NO_BOUNDARY;
+    private volatile int mEndMin = NO_BOUNDARY;
+
+    public static long pack(int start, int end) {
+        return ((long) start << 32) | (end & 0xFFFFFFFFL);
+    }
+
+    public static int start(long range) {
+        return (int) (range >> 32);
+    }
+
+    public static int end(long range) {
+        return (int) range;
+    }
+
+    /**
+     * Snap, constrain and store the given values.
+     *
+     * @return the packed range actually stored
+     */
+    public long apply(int start, int end) {
+        return apply(start, end, true);
+    }
+
+    /**
+     * Clamp the given values to [0, max] and store them. The step size, the minimum distance and the
+     * boundaries are not applied.
+     *
+     * @return the packed range actually stored
+     */
+    public long applyClamped(int start, int end) {
+        return apply(start, end, false);
+    }
+
+    private long apply(int start, int end, boolean rules) {
+        while (true) {
+            final int max = mMax;
+            final long previous = mRange;
+            final long range = rules ? constrain(start, end, max) : clamp(start, end, max);
+
+            if (range == previous || RANGE.compareAndSet(this, previous, range)) {
+                if (max == mMax) {
+                    return range;
+                }
+                // max changed in the meantime, constrain again using the new value
+            }
+        }
+    }
+
+    /**
+     * Same as {@link #apply(int, int)} but without storing the result.
+     *
+     * @return the packed range
+     */
+    public long constrain(int start, int end) {
+        return constrain(start, end, mMax);
+    }
+
+    private long constrain(int start, int end, int max) {
+        final int stepSize = mStepSize;
+        final int startMax = mStartMax;
+        final int endMin = mEndMin;
+        final int minMaxStepSize = mMinMaxStepSize;
+
+        if (stepSize > 1) {
+            start = snap(start, stepSize);
+            end = snap(end, stepSize);
+        }
+
+        if (startMax != NO_BOUNDARY || endMin != NO_BOUNDARY) {
+            if (startMax != NO_BOUNDARY) {
+                start = MathUtils.constrain(start, 0, startMax);
+            }
+            if (endMin != NO_BOUNDARY) {
+                end = MathUtils.constrain(end, endMin, max);
+            }
+        } else if (minMaxStepSize != 0) {
+            if (end - start < minMaxStepSize) {
+                end = start + minMaxStepSize;
+            }
+        }
+
+        return clamp(start, end, max);
+    }
+
+    private static long clamp(int start, int end, int max) {
+        start = MathUtils.constrain(start, 0, MathUtils.constrain(end, 0, max));
+        end = MathUtils.constrain(end, start, max);
+        return pack(start, end);
+    }
+
+    /**
+     * Round the value to the nearest multiple of step
+     */
+    static int snap(int value, int step) {
+        final int remainder = value % step;
+        if (remainder > 0) {
+            if ((float) remainder / step > 0.5) {
+                // value + (step-(value%step))
+                return value + (step - remainder);
+            } else {
+                // value - (value%step)
+                return value - remainder;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * @return the current packed range. Use this, rather than {@link #getStart()} and {@link #getEnd()},
+     * when both values must be consistent with each other
+     */
+    public long getRange() {
+        return mRange;
+    }
+
+    public int getStart() {
+        return start(mRange);
+    }
+
+    public int getEnd() {
+        return end(mRange);
+    }
+
+    public int getMax() {
+        return mMax;
+    }
+
+    /**
+     * Change the max value. Current start and end values will be clamped to the new max.
+     *
+     * @return true if the max value changed
+     */
+    public boolean setMax(int max) {
+        if (max < 0) {
+            max = 0;
+        }
+        if (max == mMax) {
+            return false;
+        }
+        mMax = max;
+
+        long previous;
+        long range;
+        do {
+            previous = mRange;
+            final int end = Math.min(end(previous), max);
+            range = pack(Math.min(start(previous), end), end);
+        } while (range != previous && !RANGE.compareAndSet(this, previous, range));
+        return true;
+    }
+
+    public int getStepSize() {
+        return mStepSize;
+    }
+
+    public void setStepSize(int value) {
+        mStepSize = Math.max(1, value);
+        setMinMaxStepSize(mMinMaxStepSize);
+    }
+
+    public int getMinMaxStepSize() {
+        return mMinMaxStepSize;
+    }
+
+    /**
+     * Set the minimum distance between start and end values. The value will be rounded to a multiple of the
+     * current step size.<br />
+     * This will reset the start max and end min boundaries.
+     */
+    public void setMinMaxStepSize(int value) {
+        if (value > mMax) {
+            throw new IllegalArgumentException("value cannot be greater than max value");
+        }
+
+        if (value != 0) {
+            mEndMin = NO_BOUNDARY;
+            mStartMax = NO_BOUNDARY;
+
+            // be sure is a multiple of stepsize
+            if (value % mStepSize != 0) {
+                value = Math.max(mStepSize, value - (value % mStepSize));
+            }
+        }
+
+        mMinMaxStepSize = value;
+    }
+
+    public int getStartMaxBoundary() {
+        return mStartMax;
+    }
+
+    public int getEndMinBoundary() {
+        return mEndMin;
+    }
+
+    /**
+     * Set the start max value and the end min value.<br />
+     * This will override the #setMinMaxStepSize
+     */
+    public void setStartEndBoundaries(int startMax, int endMin) {
+        if (startMax > endMin) {
+            throw new IllegalArgumentException("startMax cannot be greater than endMin");
+        }
+
+        if (startMax > mMax) {
+            throw new IllegalArgumentException("startMax cannot be greater max value");
+        }
+
+        if (startMax != NO_BOUNDARY || endMin != NO_BOUNDARY) {
+            mMinMaxStepSize = 0;
+        }
+
+        mStartMax = startMax;
+        mEndMin = endMin;
+    }
+
+    /**
+     * @return the maximum value the start progress can currently have
+     */
+    public int getStartMaxValue() {
+        if (mStartMax != NO_BOUNDARY) {
+            return mStartMax;
+        }
+        return getEnd() - mMinMaxStepSize;
+    }
+
+    /**
+     * @return the minimum value the end progress can currently have
+     */
+    public int getEndMinValue() {
+        if (mEndMin != NO_BOUNDARY) {
+            return mEndMin;
+        }
+        return getStart() + mMinMaxStepSize;
+    }
+}
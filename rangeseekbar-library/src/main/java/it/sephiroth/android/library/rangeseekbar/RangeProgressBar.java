@@ -1,7 +1,5 @@
 package it.sephiroth.android.library.rangeseekbar;
 
-import android.animation.AnimatorSet;
-import android.animation.ValueAnimator;
 import android.content.Context;
 import android.content.res.ColorStateList;
 import android.content.res.TypedArray;
@@ -17,40 +15,56 @@ import android.graphics.drawable.StateListDrawable;
 import android.os.Build;
 import android.os.Parcel;
 import android.os.Parcelable;
+import android.os.SystemClock;
 import android.util.AttributeSet;
 import android.view.Gravity;
 import android.view.View;
 import android.view.accessibility.AccessibilityEvent;
+import android.view.accessibility.AccessibilityManager;
 import android.view.animation.AnimationUtils;
-import android.view.animation.DecelerateInterpolator;
 import android.view.animation.Interpolator;
 
-import java.util.ArrayList;
-
+import androidx.annotation.ColorInt;
 import androidx.annotation.InterpolatorRes;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.core.graphics.drawable.DrawableCompat;
-import androidx.core.util.Pools;
-import it.sephiroth.android.library.simplelogger.LoggerFactory;
-import it.sephiroth.android.library.simplelogger.LoggerFactory.LoggerType;
 
 public class RangeProgressBar extends View {
-    protected static LoggerFactory.Logger logger =
-        LoggerFactory.getLogger("RangeProgressBar", BuildConfig.DEBUG ? LoggerType.Console : LoggerType.Null);
+    protected static final RangeLogger logger = new RangeLogger("RangeProgressBar");
 
     private static final int TIMEOUT_SEND_ACCESSIBILITY_EVENT = 200;
 
-    /** Interpolator used for smooth progress animations. */
-    private static final DecelerateInterpolator PROGRESS_ANIM_INTERPOLATOR =
-        new DecelerateInterpolator();
-
-    /** Duration of smooth progress animations. */
+    /** Default duration of smooth progress animations. */
     private static final int PROGRESS_ANIM_DURATION = 80;
 
-    protected int mMinMaxStepSize;
-    protected int mProgressStartMaxValue;
-    protected int mProgressEndMinValue;
+    /** Resolution of the int progress in long range mode, used until the track width is known. */
+    private static final int LONG_RANGE_DEFAULT_RESOLUTION = 10000;
+
+    /** Resolution of the value scale table, used until the track width is known. */
+    private static final int VALUE_SCALE_DEFAULT_RESOLUTION = 1000;
+    /** range_progress_valueScale enum values */
+    private static final int VALUE_SCALE_LOG = 1;
+
+    private static final int[] EMPTY_BUCKETS = new int[0];
+
+    protected final RangeModel mRangeModel = new RangeModel();
+
+    /**
+     * Not null in long range mode. In this mode the long model holds the real values, while the int
+     * progress is only the position of the values along the track (one unit per pixel).
+     */
+    private LongRangeModel mLongRangeModel;
+    /** Conversion factors between long values and int progress, computed once per layout. */
+    private volatile double mLongToProgress;
+    private volatile double mProgressToLong;
+
+    /** Non linear value scale, null when linear. Sampled into the table once per layout. */
+    private ValueScale mValueScale;
+    private final ValueScaleTable mValueScaleTable = new ValueScaleTable();
+
+    /** Histogram drawn behind the track, empty until {@link #setHistogram(int[])} is called. */
+    private final HistogramLayer mHistogramLayer = new HistogramLayer();
 
     int mMinWidth;
     int mMaxWidth;
@@ -58,9 +72,6 @@ public class RangeProgressBar extends View {
     int mMaxHeight;
 
     private int mProgressOffset;
-    private int mEndProgress;
-    private int mStartProgress;
-    private int mMax;
 
     protected boolean mInitialProgressDone;
 
@@ -71,12 +82,13 @@ public class RangeProgressBar extends View {
     int mSampleWidth = 0;
     private boolean mNoInvalidate;
     private Interpolator mInterpolator;
-    private RefreshProgressRunnable mRefreshProgressRunnable;
+    private long mProgressAnimationDuration = PROGRESS_ANIM_DURATION;
+    private ProgressAnimator mProgressAnimator;
+    private final RefreshProgressRunnable mRefreshProgressRunnable = new RefreshProgressRunnable();
     private long mUiThreadId;
 
     private boolean mInDrawing;
-    private boolean mAttached;
-    private boolean mRefreshIsPosted;
+    private volatile boolean mAttached;
 
     /** Value used to track progress animation, in the range [0...1]. */
     private float mVisualStartProgress;
@@ -84,14 +96,33 @@ public class RangeProgressBar extends View {
 
     boolean mMirrorForRtl = false;
 
-    private boolean mAggregatedIsVisible;
+    /** Updated by {@link #onVisibilityAggregated(boolean)} on api 24+, always true before */
+    private volatile boolean mAggregatedIsVisible = true;
+    private volatile boolean mRenderSuspensionEnabled;
+    /** The visual progress is behind the model because the view was hidden */
+    private boolean mVisualUpdatePending;
+
+    private final RefreshMailbox mRefreshMailbox = new RefreshMailbox();
 
-    private final ArrayList<RefreshData> mRefreshData = new ArrayList<>();
+    /** Opt-in performance counters, null when disabled */
+    private volatile RangeSeekBarMetrics mMetrics;
+    /** Time of the input event not drawn yet, in the {@link SystemClock#uptimeMillis()} base. 0 if none */
+    private long mPendingInputEventTime;
+    /** Debug overlay, null when disabled */
+    private volatile DebugOverlay mDebugOverlay;
 
+    private AccessibilityManager mAccessibilityManager;
     private AccessibilityEventSender mAccessibilityEventSender;
+    private boolean mAccessibilityEventScheduled;
     private Drawable mProgressDrawableIndicator;
     private Rect mProgressIndicatorBounds;
     private int mComputedWidth;
+
+    /** Region invalidated after a visual progress change, in view coordinates. */
+    private final Rect mDirtyRect = new Rect();
+    /** Last track segment pixel positions, {@link Integer#MIN_VALUE} when unknown. */
+    private int mTrackStartPx = Integer.MIN_VALUE;
+    private int mTrackEndPx = Integer.MIN_VALUE;
     protected int mPaddingBottom;
     protected int mPaddingTop;
     protected int mPaddingLeft;
@@ -109,6 +140,7 @@ public class RangeProgressBar extends View {
         super(context, attrs, defStyleAttr);
 
         mUiThreadId = Thread.currentThread().getId();
+        mAccessibilityManager = (AccessibilityManager) context.getSystemService(Context.ACCESSIBILITY_SERVICE);
 
         initProgressBar();
 
@@ -129,21 +161,47 @@ public class RangeProgressBar extends View {
         mMaxWidth = a.getDimensionPixelSize(R.styleable.RangeProgressBar_android_maxWidth, mMaxWidth);
         mMinHeight = a.getDimensionPixelSize(R.styleable.RangeProgressBar_android_minHeight, mMinHeight);
         mMaxHeight = a.getDimensionPixelSize(R.styleable.RangeProgressBar_android_maxHeight, mMaxHeight);
-        mMinMaxStepSize = a.getInteger(R.styleable.RangeProgressBar_range_progress_startEnd_minDiff, 0);
+        final int minMaxStepSize = a.getInteger(R.styleable.RangeProgressBar_range_progress_startEnd_minDiff, 0);
         mProgressOffset = a.getDimensionPixelSize(R.styleable.RangeProgressBar_range_progress_offset, 0);
-        mProgressEndMinValue = a.getInteger(R.styleable.RangeProgressBar_range_progress_endMinValue, -1);
-        mProgressStartMaxValue = a.getInteger(R.styleable.RangeProgressBar_range_progress_startMaxValue, -1);
+        final int progressEndMinValue =
+            a.getInteger(R.styleable.RangeProgressBar_range_progress_endMinValue, RangeModel.NO_BOUNDARY);
+        final int progressStartMaxValue =
+            a.getInteger(R.styleable.RangeProgressBar_range_progress_startMaxValue, RangeModel.NO_BOUNDARY);
 
         final int resID = a.getResourceId(
             R.styleable.RangeProgressBar_android_interpolator,
-            android.R.anim.linear_interpolator
-        ); // default to linear interpolator
+            android.R.anim.decelerate_interpolator
+        ); // default to decelerate interpolator
 
         if (resID > 0) {
             setInterpolator(context, resID);
         }
 
-        setMax(a.getInteger(R.styleable.RangeProgressBar_android_max, mMax));
+        setMax(a.getInteger(R.styleable.RangeProgressBar_android_max, mRangeModel.getMax()));
+        mRangeModel.setMinMaxStepSize(minMaxStepSize);
+
+        if (a.getInt(R.styleable.RangeProgressBar_range_progress_valueScale, 0) == VALUE_SCALE_LOG) {
+            mValueScale = ValueScale.log();
+        }
+
+        mHistogramLayer.setHeight(a.getDimensionPixelSize(
+            R.styleable.RangeProgressBar_range_progress_histogramHeight,
+            getResources().getDimensionPixelSize(R.dimen.sephiroth_range_progress_bar_histogram_height_material)
+        ));
+        mHistogramLayer.setBarWidth(a.getDimensionPixelSize(
+            R.styleable.RangeProgressBar_range_progress_histogramBarWidth,
+            getResources().getDimensionPixelSize(R.dimen.sephiroth_range_progress_bar_histogram_bar_width_material)
+        ));
+        mHistogramLayer.setColors(
+            a.getColor(
+                R.styleable.RangeProgressBar_range_progress_histogramColor,
+                ThemeUtils.getThemeAttrColor(context, R.attr.colorControlNormal, 0.3f)
+            ),
+            a.getColor(
+                R.styleable.RangeProgressBar_range_progress_histogramSelectedColor,
+                ThemeUtils.getThemeAttrColor(context, R.attr.colorControlActivated, 0.5f)
+            )
+        );
 
         mNoInvalidate = false;
 
@@ -183,8 +241,10 @@ public class RangeProgressBar extends View {
             mProgressTintInfo.mHasProgressBackgroundTint = true;
         }
 
-        final int startProgress = a.getInteger(R.styleable.RangeProgressBar_range_progress_startValue, mStartProgress);
-        final int endProgress = a.getInteger(R.styleable.RangeProgressBar_range_progress_endValue, mEndProgress);
+        final int startProgress =
+            a.getInteger(R.styleable.RangeProgressBar_range_progress_startValue, mRangeModel.getStart());
+        final int endProgress =
+            a.getInteger(R.styleable.RangeProgressBar_range_progress_endValue, mRangeModel.getEnd());
 
         a.recycle();
 
@@ -194,7 +254,7 @@ public class RangeProgressBar extends View {
             setImportantForAccessibility(View.IMPORTANT_FOR_ACCESSIBILITY_YES);
         }
 
-        setProgressStartEndBoundaries(mProgressStartMaxValue, mProgressEndMinValue);
+        setProgressStartEndBoundaries(progressStartMaxValue, progressEndMinValue);
 
         setInitialProgress(
             startProgress,
@@ -205,7 +265,25 @@ public class RangeProgressBar extends View {
     }
 
     public int getMinMapStepSize() {
-        return mMinMaxStepSize;
+        return mRangeModel.getMinMaxStepSize();
+    }
+
+    protected int getMinMaxStepSize() {
+        return mRangeModel.getMinMaxStepSize();
+    }
+
+    /**
+     * @return the start max value set with {@link #setProgressStartEndBoundaries(int, int)}, -1 if not set
+     */
+    protected int getProgressStartMaxBoundary() {
+        return mRangeModel.getStartMaxBoundary();
+    }
+
+    /**
+     * @return the end min value set with {@link #setProgressStartEndBoundaries(int, int)}, -1 if not set
+     */
+    protected int getProgressEndMinBoundary() {
+        return mRangeModel.getEndMinBoundary();
     }
 
     protected void setInitialProgress(final int startProgress, final int endProgress) {
@@ -313,9 +391,6 @@ public class RangeProgressBar extends View {
     }
 
     private void initProgressBar() {
-        mMax = 100;
-        mEndProgress = 100;
-        mStartProgress = 0;
         mMinWidth = 24;
         mMaxWidth = 48;
         mMinHeight = 24;
@@ -372,7 +447,7 @@ public class RangeProgressBar extends View {
             updateDrawableBounds(getWidth(), getHeight());
             updateDrawableState();
 
-            doRefreshProgress(android.R.id.progress, mStartProgress, mEndProgress, false, false, false);
+            doRefreshProgress(android.R.id.progress, getProgressStart(), getProgressEnd(), false, false, false);
         }
     }
 
@@ -570,120 +645,258 @@ public class RangeProgressBar extends View {
 
     private class RefreshProgressRunnable implements Runnable {
         public void run() {
-            synchronized (RangeProgressBar.this) {
-                final int count = mRefreshData.size();
-                for (int i = 0; i < count; i++) {
-                    final RefreshData rd = mRefreshData.get(i);
-                    doRefreshProgress(rd.id, rd.startValue, rd.endValue, rd.fromUser, true, rd.animate);
-                    rd.recycle();
-                }
-                mRefreshData.clear();
-                mRefreshIsPosted = false;
-            }
+            drainPendingRefresh();
         }
     }
 
-    @SuppressWarnings ("WeakerAccess")
-    private static class RefreshData {
-        private static final int POOL_MAX = 24;
-        private static final Pools.SynchronizedPool<RefreshData> sPool =
-            new Pools.SynchronizedPool<>(POOL_MAX);
-
-        public int id;
-        public int startValue;
-        public int endValue;
-        public boolean fromUser;
-        public boolean animate;
-
-        public static RefreshData obtain(int id, int startValue, int endValue, boolean fromUser, boolean animate) {
-            RefreshData rd = sPool.acquire();
-            if (rd == null) {
-                rd = new RefreshData();
-            }
-            rd.id = id;
-            rd.startValue = startValue;
-            rd.endValue = endValue;
-            rd.fromUser = fromUser;
-            rd.animate = animate;
-            return rd;
-        }
-
-        public void recycle() {
-            sPool.release(this);
+    /**
+     * Apply the newest progress update received from a background thread, if any.
+     */
+    private void drainPendingRefresh() {
+        final long pending = mRefreshMailbox.poll();
+        if (pending != RefreshMailbox.EMPTY) {
+            doRefreshProgress(
+                android.R.id.progress,
+                RefreshMailbox.start(pending),
+                RefreshMailbox.end(pending),
+                RefreshMailbox.isFromUser(pending),
+                true,
+                RefreshMailbox.isAnimate(pending)
+            );
         }
     }
 
-    private synchronized void doRefreshProgress(
+    private void doRefreshProgress(
         int id, int startValue, int endValue, boolean fromUser,
         boolean callBackToApp, boolean animate) {
+        final RangeTrace.Tracer tracer = RangeTrace.begin(RangeTrace.DO_REFRESH_PROGRESS);
+        try {
+            logger.info("doRefreshProgress(%d, %d, %b, %b)", startValue, endValue, fromUser, animate);
+
+            final RangeSeekBarMetrics metrics = mMetrics;
+            if (metrics != null) {
+                metrics.recordUpdateDelivered();
+            }
 
-        logger.info("doRefreshProgress(%d, %d, %b, %b)", startValue, endValue, fromUser, animate);
+            if (isRenderSuspended()) {
+                // nothing is drawn, only remember to catch up once visible
+                mVisualUpdatePending = true;
 
-        final float scale1 = mMax > 0 ? (float) startValue / mMax : 0;
-        final float scale2 = mMax > 0 ? (float) endValue / mMax : 0;
+                if (callBackToApp) {
+                    onProgressRefresh(fromUser, startValue, endValue);
+                }
+                if (animate) {
+                    // the animation is skipped, it ends right away
+                    onProgressAnimationEnd();
+                }
+                return;
+            }
 
-        if (animate) {
-            logger.verbose("start: %g to %g", mVisualStartProgress, scale1);
-            logger.verbose("end: %g to %g", mVisualEndProgress, scale2);
+            mVisualUpdatePending = false;
 
-            final ValueAnimator a1 = ValueAnimator.ofFloat(mVisualStartProgress, scale1);
-            final ValueAnimator a2 = ValueAnimator.ofFloat(mVisualEndProgress, scale2);
+            final float scale1 = valueToScale(startValue);
+            final float scale2 = valueToScale(endValue);
 
-            a2.addUpdateListener(
-                animation -> setVisualProgress(
-                    android.R.id.progress, (float) a1.getAnimatedValue(), (float) a2.getAnimatedValue()));
+            if (animate) {
+                logger.verbose("start: %g to %g", mVisualStartProgress, scale1);
+                logger.verbose("end: %g to %g", mVisualEndProgress, scale2);
 
-            AnimatorSet set = new AnimatorSet();
-            set.playTogether(a1, a2);
-            set.setDuration(PROGRESS_ANIM_DURATION);
-            set.setInterpolator(PROGRESS_ANIM_INTERPOLATOR);
-            set.start();
-        } else {
-            setVisualProgress(id, scale1, scale2);
+                getProgressAnimator().animateTo(mVisualStartProgress, mVisualEndProgress, scale1, scale2);
+            } else {
+                // a direct update always wins over a running animation
+                if (mProgressAnimator != null) {
+                    mProgressAnimator.cancel();
+                }
+                setVisualProgress(id, scale1, scale2);
+            }
+
+            if (callBackToApp) {
+                onProgressRefresh(fromUser, startValue, endValue);
+            }
+        } finally {
+            RangeTrace.end(tracer);
         }
+    }
+
+    private ProgressAnimator getProgressAnimator() {
+        if (mProgressAnimator == null) {
+            mProgressAnimator = new ProgressAnimator(new ProgressAnimator.Callback() {
+                @Override
+                public void onProgressAnimationUpdate(float start, float end) {
+                    setVisualProgress(android.R.id.progress, start, end);
+                }
 
-        if (callBackToApp) {
-            onProgressRefresh(fromUser, startValue, endValue);
+                @Override
+                public void onProgressAnimationEnd() {
+                    RangeProgressBar.this.onProgressAnimationEnd();
+                }
+            });
+            mProgressAnimator.setDuration(mProgressAnimationDuration);
+            mProgressAnimator.setInterpolator(mInterpolator);
         }
+        return mProgressAnimator;
     }
 
     public void onProgressRefresh(boolean fromUser, int startValue, int endValue) {
         logger.debug("onProgressRefresh(%d, %d)", startValue, endValue);
+
+        if (mAccessibilityManager != null && mAccessibilityManager.isEnabled()) {
+            scheduleAccessibilityEventSender();
+        }
+    }
+
+    /**
+     * Send at most one accessibility event every {@link #TIMEOUT_SEND_ACCESSIBILITY_EVENT} ms:
+     * the changes in between are folded into the next event, so a fast drag doesn't flood
+     * the accessibility services.
+     */
+    private void scheduleAccessibilityEventSender() {
+        if (mAccessibilityEventScheduled) {
+            return;
+        }
+
+        if (mAccessibilityEventSender == null) {
+            mAccessibilityEventSender = new AccessibilityEventSender();
+        }
+        mAccessibilityEventScheduled = true;
+        postDelayed(mAccessibilityEventSender, TIMEOUT_SEND_ACCESSIBILITY_EVENT);
+    }
+
+    /**
+     * Invoked at most once per accessibility event window, when the progress changed
+     */
+    void sendProgressAccessibilityEvent() {
+        sendAccessibilityEvent(AccessibilityEvent.TYPE_VIEW_SELECTED);
+    }
+
+    /**
+     * A smooth progress animation reached its target values
+     */
+    void onProgressAnimationEnd() {
+        logger.debug("onProgressAnimationEnd");
+    }
+
+    boolean isProgressAnimationRunning() {
+        return mProgressAnimator != null && mProgressAnimator.isRunning();
     }
 
     private void setVisualProgress(int id, float progress1, float progress2) {
         logger.info("setVisualProgress(%g, %g)", progress1, progress2);
         mVisualStartProgress = progress1;
         mVisualEndProgress = progress2;
-        invalidate();
+
+        mDirtyRect.setEmpty();
+
+        if (mTrackStartPx == Integer.MIN_VALUE) {
+            // positions are unknown, redraw everything
+            mDirtyRect.set(0, 0, getWidth(), getHeight());
+        }
+        updateTrackPositions();
+
+        // subclasses add the regions they changed with addDirtyRegion
         onVisualProgressChanged(id, progress1, progress2);
+
+        // nothing moved on screen, which is common with big max values
+        if (!mDirtyRect.isEmpty()) {
+            invalidate(mDirtyRect.left, mDirtyRect.top, mDirtyRect.right, mDirtyRect.bottom);
+
+            final RangeSeekBarMetrics metrics = mMetrics;
+            if (metrics != null) {
+                metrics.recordInvalidation();
+            }
+
+            final DebugOverlay overlay = mDebugOverlay;
+            if (overlay != null) {
+                overlay.onInvalidate(mDirtyRect);
+                // the overlay text is drawn at the top-left corner
+                invalidate();
+            }
+        }
     }
 
     public void onVisualProgressChanged(int id, float scale1, float scale2) {
         logger.debug("onVisualProgressChanged(%g, %g)", scale1, scale2);
     }
 
-    private synchronized void refreshProgress(
+    /**
+     * Add a region, in view coordinates, to the area invalidated after the current visual progress change.
+     * Meant to be called from {@link #onVisualProgressChanged(int, float, float)}.
+     */
+    protected void addDirtyRegion(int left, int top, int right, int bottom) {
+        mDirtyRect.union(left, top, right, bottom);
+    }
+
+    /**
+     * @return the region invalidated by the last visual progress change, in view coordinates
+     */
+    Rect getDirtyRegion() {
+        return mDirtyRect;
+    }
+
+    /**
+     * Compute the new pixel positions of the progress segment and add
+     * the parts which changed to the dirty region.
+     */
+    private void updateTrackPositions() {
+        if (null == mProgressIndicatorBounds) {
+            return;
+        }
+
+        final int w = mComputedWidth - mProgressOffset;
+        final int start = (int) (mVisualStartProgress * w);
+        final int end = (int) (mVisualEndProgress * w) + mProgressOffset;
+
+        if (mTrackStartPx != Integer.MIN_VALUE) {
+            if (start != mTrackStartPx) {
+                addTrackDirtyRegion(Math.min(start, mTrackStartPx), Math.max(start, mTrackStartPx));
+            }
+            if (end != mTrackEndPx) {
+                addTrackDirtyRegion(Math.min(end, mTrackEndPx), Math.max(end, mTrackEndPx));
+            }
+        }
+
+        mTrackStartPx = start;
+        mTrackEndPx = end;
+    }
+
+    private void addTrackDirtyRegion(int from, int to) {
+        // one extra pixel on each side for anti-aliased edges
+        if (isLayoutRtl() && mMirrorForRtl) {
+            final int right = getWidth() - mPaddingRight;
+            addDirtyRegion(right - to - 1, 0, right - from + 1, getHeight());
+        } else {
+            addDirtyRegion(mPaddingLeft + from - 1, 0, mPaddingLeft + to + 1, getHeight());
+        }
+    }
+
+    private void refreshProgress(
         @SuppressWarnings ("SameParameterValue") int id, int startValue, int endValue, boolean fromUser,
         boolean animate) {
+        final DebugOverlay overlay = mDebugOverlay;
+        if (overlay != null) {
+            overlay.onUpdateReceived();
+        }
+
         if (mUiThreadId == Thread.currentThread().getId()) {
             doRefreshProgress(id, startValue, endValue, fromUser, true, animate);
         } else {
-            if (mRefreshProgressRunnable == null) {
-                mRefreshProgressRunnable = new RefreshProgressRunnable();
-            }
-
-            final RefreshData rd = RefreshData.obtain(id, startValue, endValue, fromUser, animate);
-            mRefreshData.add(rd);
-            if (mAttached && !mRefreshIsPosted) {
-                removeCallbacks(mRefreshProgressRunnable);
-                post(mRefreshProgressRunnable);
-                mRefreshIsPosted = true;
+            // only the newest value is kept, and it's applied once on the next frame
+            if (mRefreshMailbox.offer(startValue, endValue, fromUser, animate)) {
+                // while suspended the update stays in the mailbox until resumeRendering
+                if (mAttached && !isRenderSuspended()) {
+                    postOnAnimation(mRefreshProgressRunnable);
+                }
+            } else {
+                // a drain is already scheduled, the previous update has been replaced
+                final RangeSeekBarMetrics metrics = mMetrics;
+                if (metrics != null) {
+                    metrics.recordUpdatesCoalesced(1);
+                }
             }
         }
     }
 
-    public synchronized void setProgress(int startValue, int endValue) {
+    public void setProgress(int startValue, int endValue) {
         logger.info("setProgress(%d, %d)", startValue, endValue);
         setProgressInternal(startValue, endValue, false, false);
     }
@@ -693,114 +906,314 @@ public class RangeProgressBar extends View {
         setProgressInternal(startValue, endValue, false, animate);
     }
 
-    synchronized boolean setProgressInternal(int startValue, int endValue, boolean fromUser, boolean animate) {
+    boolean setProgressInternal(int startValue, int endValue, boolean fromUser, boolean animate) {
         logger.info("setProgressInternal(%d, %d)", startValue, endValue);
-        startValue = MathUtils.constrain(startValue, 0, MathUtils.constrain(endValue, 0, mMax));
-        endValue = MathUtils.constrain(endValue, startValue, mMax);
 
-        if (startValue == mStartProgress && endValue == mEndProgress) {
-            return false;
+        if (mLongRangeModel != null) {
+            // the int values are positions along the track
+            return setLongProgressFromPosition(startValue, endValue, fromUser, animate);
         }
 
-        mEndProgress = endValue;
-        mStartProgress = startValue;
+        final long previous = mRangeModel.getRange();
+        final long range = applyProgress(startValue, endValue);
+
+        if (range == previous) {
+            return false;
+        }
 
-        refreshProgress(android.R.id.progress, mStartProgress, mEndProgress, fromUser, animate);
+        refreshProgress(android.R.id.progress, RangeModel.start(range), RangeModel.end(range), fromUser, animate);
 
         return true;
     }
 
+    /**
+     * Constrain and store the new values. The plain progress bar only clamps them to [0, max]: the step,
+     * the min diff and the boundaries are applied by {@link RangeSeekBar}.
+     *
+     * @return the packed range actually stored
+     */
+    long applyProgress(int startValue, int endValue) {
+        return mRangeModel.applyClamped(startValue, endValue);
+    }
+
     /**
      * Set the start max value and the end min value.<br />
      * This will override the #setMinMaxStepSize
      */
     public void setProgressStartEndBoundaries(int startMax, int endMin) {
         logger.info("setProgressStartEndBoundaries(%d, %d)", startMax, endMin);
+        checkIntRangeMode("setProgressStartEndBoundaries");
+        mRangeModel.setStartEndBoundaries(startMax, endMin);
+    }
 
-        if (startMax > endMin) {
-            throw new IllegalArgumentException("startMax cannot be greater than endMin");
+    public void setMinMaxStepSize(int value) {
+        logger.info("setMinMaxStepSize(%d)", value);
+        checkIntRangeMode("setMinMaxStepSize");
+        mRangeModel.setMinMaxStepSize(value);
+    }
+
+    public int getProgressStartMaxValue() {
+        return mRangeModel.getStartMaxValue();
+    }
+
+    public int getProgressEndMinValue() {
+        return mRangeModel.getEndMinValue();
+    }
+
+    public int getProgressEnd() {
+        return mRangeModel.getEnd();
+    }
+
+    public int getProgressStart() {
+        return mRangeModel.getStart();
+    }
+
+    public int getMax() {
+        return mRangeModel.getMax();
+    }
+
+    public void setMax(int max) {
+        logger.info("setMax(%d)", max);
+        checkIntRangeMode("setMax");
+        if (mRangeModel.setMax(max)) {
+            postInvalidate();
+            refreshProgress(android.R.id.progress, getProgressStart(), getProgressEnd(), false, false);
         }
+    }
 
-        if (startMax > mMax) {
-            throw new IllegalArgumentException("startMax cannot be greater max value");
+    /**
+     * Switch to the long range mode, where start and end are long values in [min, max] (i.e. epoch
+     * milliseconds). Use {@link #setLongProgress(long, long)} and {@link #getLongProgressStart()},
+     * {@link #getLongProgressEnd()} to access the values.<br />
+     * In this mode the int progress is the position of the values along the track: {@link #setProgress(int, int)}
+     * moves the thumbs to the given positions and updates the long values accordingly. The int max,
+     * step size, min diff and boundaries are not available and their setters throw an
+     * {@link IllegalStateException}: use {@link #setLongStepSize(long)} and {@link #setLongMinDistance(long)} instead.
+     */
+    public void setLongRange(long min, long max) {
+        logger.info("setLongRange(%d, %d)", min, max);
+
+        if (mLongRangeModel == null) {
+            mLongRangeModel = new LongRangeModel();
+            mRangeModel.setStartEndBoundaries(RangeModel.NO_BOUNDARY, RangeModel.NO_BOUNDARY);
+            mRangeModel.setMinMaxStepSize(0);
+            mRangeModel.setStepSize(1);
         }
+        mLongRangeModel.setRange(min, max);
+        updateLongRangeMapping();
+    }
+
+    public boolean isLongRangeMode() {
+        return mLongRangeModel != null;
+    }
+
+    public long getLongMin() {
+        return requireLongRangeModel().getMin();
+    }
+
+    public long getLongMax() {
+        return requireLongRangeModel().getMax();
+    }
+
+    public long getLongProgressStart() {
+        return requireLongRangeModel().getStart();
+    }
+
+    public long getLongProgressEnd() {
+        return requireLongRangeModel().getEnd();
+    }
+
+    /**
+     * Copy the current long range into the passed array: out[0] is start and out[1] is end.
+     */
+    public void getLongProgress(@NonNull long[] out) {
+        requireLongRangeModel().getRange(out);
+    }
 
-        if (startMax != -1 || endMin != -1) {
-            mMinMaxStepSize = 0;
+    public void setLongProgress(long startValue, long endValue) {
+        setLongProgress(startValue, endValue, false);
+    }
+
+    public void setLongProgress(long startValue, long endValue, boolean animate) {
+        logger.info("setLongProgress(%d, %d)", startValue, endValue);
+
+        if (requireLongRangeModel().apply(startValue, endValue)) {
+            syncLongProgress(false, animate);
         }
+    }
 
-        mProgressStartMaxValue = startMax;
-        mProgressEndMinValue = endMin;
+    /**
+     * Set the step size of the long range values. Values are snapped to min + k * stepSize.
+     */
+    public void setLongStepSize(long value) {
+        requireLongRangeModel().setStepSize(value);
+        syncLongProgress(false, false);
     }
 
-    public void setMinMaxStepSize(int value) {
-        logger.info("setMinMaxStepSize(%d)", value);
+    public long getLongStepSize() {
+        return requireLongRangeModel().getStepSize();
+    }
 
-        if (value > mMax) {
-            throw new IllegalArgumentException("value cannot be greater than max value");
+    /**
+     * Set the minimum distance between the long start and end values.
+     */
+    public void setLongMinDistance(long value) {
+        requireLongRangeModel().setMinDistance(value);
+        syncLongProgress(false, false);
+    }
+
+    public long getLongMinDistance() {
+        return requireLongRangeModel().getMinDistance();
+    }
+
+    /**
+     * @throws IllegalStateException in long range mode, where the int max and constraints are managed internally
+     */
+    void checkIntRangeMode(String method) {
+        if (mLongRangeModel != null) {
+            throw new IllegalStateException(method + " is not available in long range mode");
         }
+    }
 
-        if (value != 0) {
-            mProgressEndMinValue = -1;
-            mProgressStartMaxValue = -1;
+    private LongRangeModel requireLongRangeModel() {
+        if (mLongRangeModel == null) {
+            throw new IllegalStateException("not in long range mode, call setLongRange first");
         }
+        return mLongRangeModel;
+    }
+
+    /**
+     * Compute the conversion factors between long values and int progress. One int unit is one pixel
+     * of the track, so the visual precision doesn't depend on the size of the long range.
+     */
+    private void updateLongRangeMapping() {
+        final int resolution = mComputedWidth > 0 ? mComputedWidth : LONG_RANGE_DEFAULT_RESOLUTION;
+        final long span = mLongRangeModel.getSpan();
+
+        mLongToProgress = span > 0 ? resolution / (double) span : 0;
+        mProgressToLong = span / (double) resolution;
 
-        mMinMaxStepSize = value;
+        mRangeModel.setMax(resolution);
+        syncLongProgress(false, false);
     }
 
-    public int getProgressStartMaxValue() {
-        if (mProgressStartMaxValue != -1) {
-            return mProgressStartMaxValue;
+    private int toProgress(long value) {
+        return (int) Math.round((value - mLongRangeModel.getMin()) * mLongToProgress);
+    }
+
+    private long toLong(int progress) {
+        if (progress <= 0) {
+            return mLongRangeModel.getMin();
         }
-        return getProgressEnd() - mMinMaxStepSize;
+        if (progress >= mRangeModel.getMax()) {
+            return mLongRangeModel.getMax();
+        }
+        final long offset = Math.min(Math.round(progress * mProgressToLong), mLongRangeModel.getSpan());
+        return mLongRangeModel.getMin() + offset;
     }
 
-    public int getProgressEndMinValue() {
-        if (mProgressEndMinValue != -1) {
-            return mProgressEndMinValue;
+    /**
+     * Move the int progress to the position of the current long values and notify the change,
+     * even if the position on screen didn't change.
+     */
+    private void syncLongProgress(boolean fromUser, boolean animate) {
+        final long range = mRangeModel.apply(
+            toProgress(mLongRangeModel.getStart()), toProgress(mLongRangeModel.getEnd()));
+        refreshProgress(android.R.id.progress, RangeModel.start(range), RangeModel.end(range), fromUser, animate);
+    }
+
+    private boolean setLongProgressFromPosition(int startValue, int endValue, boolean fromUser, boolean animate) {
+        final long range = mRangeModel.getRange();
+
+        // only the values which actually moved are converted, the others keep their exact long value
+        final long start = startValue == RangeModel.start(range) ? mLongRangeModel.getStart() : toLong(startValue);
+        final long end = endValue == RangeModel.end(range) ? mLongRangeModel.getEnd() : toLong(endValue);
+
+        if (!mLongRangeModel.apply(start, end)) {
+            return false;
         }
-        return getProgressStart() + mMinMaxStepSize;
+
+        syncLongProgress(fromUser, animate);
+        return true;
     }
 
-    public int getProgressEnd() {
-        return mEndProgress;
+    /**
+     * Set a non linear mapping between values and track positions, i.e. {@link ValueScale#log()}.
+     * Pass null to restore the linear mapping.<br />
+     * The scale is sampled once per track width (and max value) into a lookup table, so the
+     * conversions done while drawing and dragging are only array lookups.<br />
+     * Tick marks are always evenly spaced and the scale is not used in long range mode.
+     */
+    public void setValueScale(@Nullable ValueScale scale) {
+        if (scale == ValueScale.linear()) {
+            scale = null;
+        }
+        if (scale != mValueScale) {
+            mValueScale = scale;
+            refreshProgress(android.R.id.progress, getProgressStart(), getProgressEnd(), false, false);
+        }
     }
 
-    public int getProgressStart() {
-        return mStartProgress;
+    @NonNull
+    public ValueScale getValueScale() {
+        return mValueScale != null ? mValueScale : ValueScale.linear();
     }
 
-    public synchronized int getMax() {
-        return mMax;
+    /**
+     * @return the position of the value along the track, in [0, 1]. Must be called from the ui thread.
+     */
+    float valueToScale(int value) {
+        final int max = mRangeModel.getMax();
+        if (max <= 0) {
+            return 0;
+        }
+        if (mValueScale == null || mLongRangeModel != null) {
+            return (float) value / max;
+        }
+        return getValueScaleTable(max).toFraction(value);
     }
 
-    public synchronized void setMax(int max) {
-        logger.info("setMax(%d)", max);
-        if (max < 0) {
-            max = 0;
+    /**
+     * @param scale position along the track, in [0, 1]
+     * @return the (not rounded) value at the given position. Must be called from the ui thread.
+     */
+    float scaleToValue(float scale) {
+        final int max = mRangeModel.getMax();
+        if (max <= 0) {
+            return 0;
         }
-        if (max != mMax) {
-            mMax = max;
-            postInvalidate();
+        if (mValueScale == null || mLongRangeModel != null) {
+            return scale * max;
+        }
+        return getValueScaleTable(max).toValue(scale);
+    }
 
-            if (mEndProgress > max) {
-                mEndProgress = max;
-            }
-            refreshProgress(android.R.id.progress, mStartProgress, mEndProgress, false, false);
+    private ValueScaleTable getValueScaleTable(int max) {
+        final int width = mComputedWidth > 0 ? mComputedWidth : VALUE_SCALE_DEFAULT_RESOLUTION;
+        if (!mValueScaleTable.isValid(mValueScale, max, width)) {
+            logger.info("building value scale table (%d, %d)", max, width);
+            mValueScaleTable.build(mValueScale, max, width);
         }
+        return mValueScaleTable;
     }
 
     @SuppressWarnings ("unused")
-    public synchronized final void incrementEndValueBy(int diff) {
-        setProgress(mStartProgress, mEndProgress + diff);
+    public final void incrementEndValueBy(int diff) {
+        setProgress(getProgressStart(), getProgressEnd() + diff);
     }
 
     public void setInterpolator(Context context, @InterpolatorRes int resID) {
         setInterpolator(AnimationUtils.loadInterpolator(context, resID));
     }
 
+    /**
+     * Set the interpolator used when the progress change is animated
+     */
     public void setInterpolator(Interpolator interpolator) {
         mInterpolator = interpolator;
+        if (mProgressAnimator != null) {
+            mProgressAnimator.setInterpolator(interpolator);
+        }
     }
 
     @SuppressWarnings ("unused")
@@ -808,6 +1221,22 @@ public class RangeProgressBar extends View {
         return mInterpolator;
     }
 
+    /**
+     * Set the duration, in milliseconds, of the animated progress changes
+     */
+    @SuppressWarnings ("unused")
+    public void setProgressAnimationDuration(long duration) {
+        mProgressAnimationDuration = duration;
+        if (mProgressAnimator != null) {
+            mProgressAnimator.setDuration(duration);
+        }
+    }
+
+    @SuppressWarnings ("unused")
+    public long getProgressAnimationDuration() {
+        return mProgressAnimationDuration;
+    }
+
     @Override
     public void onVisibilityAggregated(boolean isVisible) {
         super.onVisibilityAggregated(isVisible);
@@ -818,6 +1247,73 @@ public class RangeProgressBar extends View {
             if (mCurrentDrawable != null) {
                 mCurrentDrawable.setVisible(isVisible, false);
             }
+
+            if (mRenderSuspensionEnabled) {
+                if (isVisible) {
+                    resumeRendering();
+                } else {
+                    suspendRendering();
+                }
+            }
+        }
+    }
+
+    /**
+     * When enabled, a bar which is not visible (i.e. in a hidden ViewPager tab) skips the progress
+     * animations and the invalidations. Updates posted from background threads are folded into a single
+     * pending update, and one catch-up is applied when the bar becomes visible again. Listeners
+     * invoked on the ui thread are still notified immediately.<br />
+     * Relies on {@link #onVisibilityAggregated(boolean)}, so it has no effect before api 24.
+     * Disabled by default.
+     */
+    public void setRenderSuspensionEnabled(boolean enabled) {
+        if (enabled == mRenderSuspensionEnabled) {
+            return;
+        }
+
+        mRenderSuspensionEnabled = enabled;
+
+        if (!mAggregatedIsVisible) {
+            if (enabled) {
+                suspendRendering();
+            } else {
+                resumeRendering();
+            }
+        }
+    }
+
+    public boolean isRenderSuspensionEnabled() {
+        return mRenderSuspensionEnabled;
+    }
+
+    /**
+     * @return true if the visual updates are currently skipped
+     */
+    boolean isRenderSuspended() {
+        return mRenderSuspensionEnabled && !mAggregatedIsVisible;
+    }
+
+    private void suspendRendering() {
+        logger.debug("suspendRendering");
+
+        if (isProgressAnimationRunning()) {
+            // jump to the target values once visible again
+            mProgressAnimator.cancel();
+            mVisualUpdatePending = true;
+            onProgressAnimationEnd();
+        }
+    }
+
+    private void resumeRendering() {
+        logger.debug("resumeRendering");
+
+        // single catch-up: the newest background update first, then the ui thread updates
+        if (mRefreshMailbox.hasPending()) {
+            drainPendingRefresh();
+        }
+
+        if (mVisualUpdatePending) {
+            doRefreshProgress(android.R.id.progress, getProgressStart(), getProgressEnd(), false, false, false);
         }
     }
 
@@ -841,6 +1337,13 @@ public class RangeProgressBar extends View {
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         updateDrawableBounds(w, h);
+
+        if (mLongRangeModel != null) {
+            updateLongRangeMapping();
+        } else if (mValueScale != null) {
+            // positions depend on the table resolution, which is the track width
+            doRefreshProgress(android.R.id.progress, getProgressStart(), getProgressEnd(), false, false, false);
+        }
     }
 
     private void updateDrawableBounds(int w, int h) {
@@ -860,6 +1363,8 @@ public class RangeProgressBar extends View {
         mProgressDrawableIndicator = null;
         mProgressIndicatorBounds = null;
         mComputedWidth = w;
+        mTrackStartPx = Integer.MIN_VALUE;
+        mTrackEndPx = Integer.MIN_VALUE;
 
         if (mProgressDrawable != null) {
             mProgressDrawable.setBounds(left, top, right, bottom);
@@ -869,9 +1374,86 @@ public class RangeProgressBar extends View {
     }
 
     @Override
-    protected synchronized void onDraw(Canvas canvas) {
-        super.onDraw(canvas);
-        drawTrack(canvas);
+    public void draw(Canvas canvas) {
+        final RangeSeekBarMetrics metrics = mMetrics;
+        final DebugOverlay overlay = mDebugOverlay;
+        if (metrics == null && overlay == null) {
+            super.draw(canvas);
+            return;
+        }
+
+        final long startTime = System.nanoTime();
+        super.draw(canvas);
+        final long duration = System.nanoTime() - startTime;
+
+        if (metrics != null) {
+            metrics.recordDraw(duration);
+
+            if (mPendingInputEventTime != 0) {
+                metrics.recordInputLatency((SystemClock.uptimeMillis() - mPendingInputEventTime) * 1_000_000L);
+                mPendingInputEventTime = 0;
+            }
+        }
+
+        if (overlay != null) {
+            overlay.onFrameRendered(duration);
+            overlay.draw(canvas);
+        }
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        final RangeTrace.Tracer tracer = RangeTrace.begin(RangeTrace.PROGRESS_ON_DRAW);
+        try {
+            super.onDraw(canvas);
+            drawTrack(canvas);
+        } finally {
+            RangeTrace.end(tracer);
+        }
+    }
+
+    /**
+     * Enable the performance counters of this view. The same instance can be shared by several views.
+     *
+     * @param metrics the metrics, or null to disable them (the default)
+     */
+    public void setMetrics(@Nullable RangeSeekBarMetrics metrics) {
+        mMetrics = metrics;
+        mPendingInputEventTime = 0;
+    }
+
+    @Nullable
+    public RangeSeekBarMetrics getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * Debug drawing mode: paint an overlay with the duration of the last draw, the progress
+     * updates received and the frames rendered per second, and the outline of the last
+     * invalidated region. Can be toggled at any time, it costs a null check when disabled.
+     */
+    public void setDebugOverlayEnabled(boolean enabled) {
+        if (enabled == (mDebugOverlay != null)) {
+            return;
+        }
+        mDebugOverlay = enabled ? new DebugOverlay(getResources().getDisplayMetrics().density) : null;
+        invalidate();
+    }
+
+    public boolean isDebugOverlayEnabled() {
+        return mDebugOverlay != null;
+    }
+
+    /**
+     * An input event changed the progress, its latency is measured at the next draw
+     *
+     * @param eventTime event time, i.e. {@link android.view.MotionEvent#getEventTime()}
+     */
+    void onInputEvent(long eventTime) {
+        if (mMetrics != null && mPendingInputEventTime == 0) {
+            // the oldest input event not drawn yet
+            mPendingInputEventTime = eventTime;
+        }
     }
 
     protected boolean isLayoutRtl() {
@@ -892,11 +1474,15 @@ public class RangeProgressBar extends View {
                 canvas.translate(mPaddingLeft, mPaddingTop);
             }
 
-            if (null != mProgressIndicatorBounds) {
-                final int w = mComputedWidth - mProgressOffset;
-                final int start = (int) (mVisualStartProgress * w);
-                final int end = (int) (mVisualEndProgress * w);
+            final int w = mComputedWidth - mProgressOffset;
+            final int start = (int) (mVisualStartProgress * w);
+            final int end = (int) (mVisualEndProgress * w);
+
+            if (!mHistogramLayer.isEmpty()) {
+                drawHistogram(canvas, d.getBounds(), w, start, mProgressOffset + end);
+            }
 
+            if (null != mProgressIndicatorBounds) {
                 mProgressDrawableIndicator
                     .setBounds(
                         start,
@@ -911,6 +1497,55 @@ public class RangeProgressBar extends View {
         }
     }
 
+    /**
+     * Draw the histogram before the track, so the track is drawn over it. The bars start from the
+     * middle of the track and never go above the top of the view.
+     */
+    private void drawHistogram(Canvas canvas, Rect trackBounds, int width, int selectedStart, int selectedEnd) {
+        final int max = mRangeModel.getMax();
+        final boolean nonLinear = mValueScale != null && mLongRangeModel == null && max > 0;
+        final int baseline = trackBounds.centerY();
+
+        canvas.translate(0, baseline);
+        mHistogramLayer.draw(
+            canvas, width, mPaddingTop + baseline, max,
+            nonLinear ? mValueScale : null,
+            nonLinear ? getValueScaleTable(max) : null,
+            selectedStart, selectedEnd
+        );
+        canvas.translate(0, -baseline);
+    }
+
+    /**
+     * Show a histogram behind the track, i.e. the distribution of the items matching each value.
+     * Bars under the selected range use the selected color.<br />
+     * Buckets are evenly distributed between 0 and max and are downsampled to the track width.
+     * The array is not retained: call this method again when the counts change.
+     *
+     * @param buckets count of each bucket, or null to remove the histogram
+     */
+    public void setHistogram(@Nullable int[] buckets) {
+        mHistogramLayer.setBuckets(buckets != null ? buckets : EMPTY_BUCKETS);
+        invalidate();
+    }
+
+    public boolean hasHistogram() {
+        return !mHistogramLayer.isEmpty();
+    }
+
+    public void setHistogramColors(@ColorInt int color, @ColorInt int selectedColor) {
+        mHistogramLayer.setColors(color, selectedColor);
+        invalidate();
+    }
+
+    /**
+     * @return the max height of the histogram bars, 0 if there is no histogram. The bars are drawn within
+     * the bounds of the view, so they can be shorter if the view is not tall enough.
+     */
+    public int getHistogramHeight() {
+        return mHistogramLayer.isEmpty() ? 0 : mHistogramLayer.getHeight();
+    }
+
     public int getProgressOffset() {
         return mProgressOffset;
     }
@@ -922,24 +1557,29 @@ public class RangeProgressBar extends View {
     }
 
     @Override
-    protected synchronized void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        int dw = 0;
-        int dh = 0;
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        final RangeTrace.Tracer tracer = RangeTrace.begin(RangeTrace.PROGRESS_ON_MEASURE);
+        try {
+            int dw = 0;
+            int dh = 0;
 
-        final Drawable d = mCurrentDrawable;
-        if (d != null) {
-            dw = Math.max(mMinWidth, Math.min(mMaxWidth, d.getIntrinsicWidth()));
-            dh = Math.max(mMinHeight, Math.min(mMaxHeight, d.getIntrinsicHeight()));
-        }
+            final Drawable d = mCurrentDrawable;
+            if (d != null) {
+                dw = Math.max(mMinWidth, Math.min(mMaxWidth, d.getIntrinsicWidth()));
+                dh = Math.max(mMinHeight, Math.min(mMaxHeight, d.getIntrinsicHeight()));
+            }
 
-        updateDrawableState();
+            updateDrawableState();
 
-        dw += getPaddingLeft() + getPaddingRight();
-        dh += getPaddingTop() + getPaddingBottom();
+            dw += getPaddingLeft() + getPaddingRight();
+            dh += getPaddingTop() + getPaddingBottom();
 
-        final int measuredWidth = resolveSizeAndState(dw, widthMeasureSpec, 0);
-        final int measuredHeight = resolveSizeAndState(dh, heightMeasureSpec, 0);
-        setMeasuredDimension(measuredWidth, measuredHeight);
+            final int measuredWidth = resolveSizeAndState(dw, widthMeasureSpec, 0);
+            final int measuredHeight = resolveSizeAndState(dh, heightMeasureSpec, 0);
+            setMeasuredDimension(measuredWidth, measuredHeight);
+        } finally {
+            RangeTrace.end(tracer);
+        }
     }
 
     @Override
@@ -1010,8 +1650,8 @@ public class RangeProgressBar extends View {
         Parcelable superState = super.onSaveInstanceState();
         SavedState ss = new SavedState(superState);
 
-        ss.startValue = mStartProgress;
-        ss.endValue = mEndProgress;
+        ss.startValue = getProgressStart();
+        ss.endValue = getProgressEnd();
 
         return ss;
     }
@@ -1027,29 +1667,25 @@ public class RangeProgressBar extends View {
     protected void onAttachedToWindow() {
         super.onAttachedToWindow();
 
-        synchronized (this) {
-            final int count = mRefreshData.size();
-            for (int i = 0; i < count; i++) {
-                final RefreshData rd = mRefreshData.get(i);
-                doRefreshProgress(rd.id, rd.startValue, rd.endValue, rd.fromUser, true, rd.animate);
-                rd.recycle();
-            }
-            mRefreshData.clear();
-        }
+        // must be set before draining, any update offered from now on will be posted
         mAttached = true;
+        drainPendingRefresh();
     }
 
     @Override
     protected void onDetachedFromWindow() {
-        if (mRefreshProgressRunnable != null) {
-            removeCallbacks(mRefreshProgressRunnable);
-            mRefreshIsPosted = false;
-        }
+        mAttached = false;
+        removeCallbacks(mRefreshProgressRunnable);
+        mRefreshMailbox.unschedule();
+
         if (mAccessibilityEventSender != null) {
             removeCallbacks(mAccessibilityEventSender);
+            mAccessibilityEventScheduled = false;
+        }
+        if (mProgressAnimator != null) {
+            mProgressAnimator.cancel();
         }
         super.onDetachedFromWindow();
-        mAttached = false;
     }
 
     @Override
@@ -1059,7 +1695,8 @@ public class RangeProgressBar extends View {
 
     private class AccessibilityEventSender implements Runnable {
         public void run() {
-            sendAccessibilityEvent(AccessibilityEvent.TYPE_VIEW_SELECTED);
+            mAccessibilityEventScheduled = false;
+            sendProgressAccessibilityEvent();
         }
     }
 
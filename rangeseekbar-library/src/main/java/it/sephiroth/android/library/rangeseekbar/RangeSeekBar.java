@@ -12,16 +12,27 @@ import android.graphics.Region.Op;
 import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.util.AttributeSet;
+import android.view.InputDevice;
 import android.view.KeyEvent;
 import android.view.MotionEvent;
 import android.view.ViewConfiguration;
+import android.view.accessibility.AccessibilityEvent;
 import android.view.accessibility.AccessibilityNodeInfo;
+import android.widget.SeekBar;
+
+import java.util.List;
+import java.util.concurrent.Executor;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.core.graphics.drawable.DrawableCompat;
 import androidx.core.view.ViewCompat;
+import androidx.core.view.accessibility.AccessibilityNodeInfoCompat;
+import androidx.core.view.accessibility.AccessibilityNodeInfoCompat.AccessibilityActionCompat;
+import androidx.core.view.accessibility.AccessibilityNodeInfoCompat.RangeInfoCompat;
+import androidx.customview.widget.ExploreByTouchHelper;
 
 @SuppressWarnings ("unused")
 public class RangeSeekBar extends RangeProgressBar {
@@ -38,10 +49,101 @@ public class RangeSeekBar extends RangeProgressBar {
         void onStopTrackingTouch(RangeSeekBar seekBar);
     }
 
+    /**
+     * Listener notified with the long values, in long range mode
+     *
+     * @see #setLongRange(long, long)
+     */
+    public interface OnLongRangeSeekBarChangeListener {
+
+        void onProgressChanged(RangeSeekBar seekBar, long progressStart, long progressEnd, boolean fromUser);
+    }
+
+    /**
+     * Listener notified once the range is settled: after the user stops dragging, after a key press,
+     * or after a smooth progress animation ends
+     *
+     * @see #setOnRangeSettledListener(OnRangeSettledListener)
+     */
+    public interface OnRangeSettledListener {
+
+        void onRangeSettled(RangeSeekBar seekBar, int progressStart, int progressEnd);
+    }
+
+    /**
+     * Listener invoked on a caller supplied {@link Executor}. Changes are
+     * conflated while the executor is busy, so only the newest range is processed.
+     *
+     * @see #setOnRangeChangeListener(Executor, OnAsyncRangeChangeListener)
+     */
+    public interface OnAsyncRangeChangeListener {
+
+        void onRangeChanged(RangeSeekBar seekBar, int progressStart, int progressEnd, boolean fromUser);
+    }
+
+    /**
+     * Listener notified with the number of items of a {@link RangeIndex} which are in the current range
+     *
+     * @see #setRangeIndex(RangeIndex, OnRangeCountChangeListener)
+     */
+    public interface OnRangeCountChangeListener {
+
+        void onRangeCountChanged(RangeSeekBar seekBar, int count);
+    }
+
     private final Rect mTempRect1 = new Rect();
     private final Rect mTempRect2 = new Rect();
 
     private OnRangeSeekBarChangeListener mOnRangeSeekBarChangeListener;
+    private OnLongRangeSeekBarChangeListener mOnLongRangeSeekBarChangeListener;
+    private OnRangeSettledListener mOnRangeSettledListener;
+    private ExecutorDispatcher mExecutorDispatcher;
+    /** Listeners registered with {@link #addOnRangeSeekBarChangeListener(OnRangeSeekBarChangeListener)} */
+    private final ListenerList<OnRangeSeekBarChangeListener> mListeners =
+        new ListenerList<>(new OnRangeSeekBarChangeListener[0]);
+
+    /** Applies throttle/debounce/distinct to the change listeners. Null while the super constructor runs. */
+    private final ProgressDispatcher mProgressDispatcher = new ProgressDispatcher(
+        new ProgressDispatcher.Target() {
+            @Override
+            public void dispatchProgressChanged(int start, int end, boolean fromUser) {
+                RangeSeekBar.this.dispatchProgressChanged(start, end, fromUser);
+            }
+
+            @Override
+            public void dispatchRangeSettled(int start, int end) {
+                if (mOnRangeSettledListener != null) {
+                    mOnRangeSettledListener.onRangeSettled(RangeSeekBar.this, start, end);
+                }
+            }
+        },
+        new ProgressDispatcher.Scheduler() {
+            @Override
+            public long now() {
+                return SystemClock.uptimeMillis();
+            }
+
+            @Override
+            public void schedule(Runnable runnable, long delayMillis) {
+                postDelayed(runnable, delayMillis);
+            }
+
+            @Override
+            public void cancel(Runnable runnable) {
+                removeCallbacks(runnable);
+            }
+        }
+    );
+    private final long[] mLongRange = new long[2];
+
+    private RangeIndex mRangeIndex;
+    private OnRangeCountChangeListener mOnRangeCountChangeListener;
+    private int mRangeCount = RangeIndex.NOT_READY;
+    private final Runnable mRangeIndexReadyRunnable = this::updateRangeCount;
+    /** Registered on the index only while attached, so a longer lived index doesn't hold the view */
+    private final Runnable mRangeIndexReadyListener = () -> post(mRangeIndexReadyRunnable);
+    /** Null while the super constructor runs */
+    private final AccessibilityHelper mAccessibilityHelper = new AccessibilityHelper();
 
     public enum WhichThumb {
         Start, End, None
@@ -50,11 +152,11 @@ public class RangeSeekBar extends RangeProgressBar {
     private int mThumbWidth;
     private int mThumbHeight;
     private int mThumbOffset;
-    private int mStepSize = 1;
     private int mThumbClipInset = 0;
     private Drawable mThumbStart;
     private Drawable mThumbEnd;
     private Drawable mTickMark;
+    private final TickMarkLayer mTickMarkLayer = new TickMarkLayer();
     private ColorStateList mThumbTintList = null;
     private ColorStateList mTickMarkTintList = null;
     private PorterDuff.Mode mThumbTintMode = null;
@@ -85,6 +187,26 @@ public class RangeSeekBar extends RangeProgressBar {
     private boolean mIsDragging;
     private WhichThumb mWhichThumb = WhichThumb.None;
 
+    /**
+     * When enabled, ACTION_MOVE samples are accumulated and the thumb position
+     * is resolved only once per frame.
+     */
+    private boolean mTouchBatchingEnabled;
+    private boolean mTouchPending;
+    private float mPendingTouchX;
+    private float mPendingTouchY;
+    private final Runnable mTouchBatchRunnable = this::flushPendingTouch;
+
+    /** Delay after the last wheel event before the range is considered settled */
+    private static final int SCROLL_SETTLE_DELAY = 200;
+
+    /** Wheel/trackpad scroll accumulated in this frame, in steps (can be fractional) */
+    private float mPendingScroll;
+    private WhichThumb mScrollThumb = WhichThumb.None;
+    private boolean mScrollPending;
+    private final Runnable mScrollBatchRunnable = this::flushPendingScroll;
+    private final Runnable mScrollSettleRunnable = () -> mProgressDispatcher.settle(getProgressStart(), getProgressEnd());
+
     public RangeSeekBar(Context context) {
         this(context, null);
     }
@@ -101,6 +223,7 @@ public class RangeSeekBar extends RangeProgressBar {
         super(context, attrs, defStyleAttr);
 
         mInitialProgressDone = false;
+        ViewCompat.setAccessibilityDelegate(this, mAccessibilityHelper);
 
         final TypedArray a = context.obtainStyledAttributes(
             attrs, R.styleable.RangeSeekBar, defStyleAttr, defStyleRes);
@@ -154,8 +277,13 @@ public class RangeSeekBar extends RangeProgressBar {
 
         mSplitTrack = a.getBoolean(R.styleable.RangeSeekBar_android_splitTrack, false);
 
+        mTickMarkLayer.setMinSpacing(a.getDimensionPixelSize(
+            R.styleable.RangeSeekBar_range_seekbar_tickMarkMinSpacing,
+            getResources().getDimensionPixelSize(R.dimen.sephiroth_range_progress_bar_tick_mark_min_spacing_material)
+        ));
+
         if (a.hasValue(R.styleable.RangeSeekBar_range_seekbar_stepSize)) {
-            mStepSize = a.getInt(R.styleable.RangeSeekBar_range_seekbar_stepSize, 1);
+            mRangeModel.setStepSize(a.getInt(R.styleable.RangeSeekBar_range_seekbar_stepSize, 1));
         }
 
         setMinMaxStepSize(getMinMapStepSize());
@@ -166,6 +294,8 @@ public class RangeSeekBar extends RangeProgressBar {
             R.styleable.RangeSeekBar_android_thumbOffset, getThumbOffset());
         setThumbOffset(thumbOffset);
 
+        mTouchBatchingEnabled = a.getBoolean(R.styleable.RangeSeekBar_range_seekbar_touchBatching, false);
+
         final boolean useDisabledAlpha = a.getBoolean(R.styleable.RangeSeekBar_range_seekbar_useDisabledAlpha, true);
         a.recycle();
 
@@ -194,18 +324,22 @@ public class RangeSeekBar extends RangeProgressBar {
     private void adjustInitialProgressValues() {
         logger.info("adjustInitialProgressValues");
 
-        if (mProgressStartMaxValue != -1 || mProgressEndMinValue != -1) {
-            if (mProgressStartMaxValue != -1) {
-                mInitialStartValue = Math.min(mInitialStartValue, mProgressStartMaxValue);
+        final int startMax = mRangeModel.getStartMaxBoundary();
+        final int endMin = mRangeModel.getEndMinBoundary();
+        final int minMaxStepSize = mRangeModel.getMinMaxStepSize();
+
+        if (startMax != RangeModel.NO_BOUNDARY || endMin != RangeModel.NO_BOUNDARY) {
+            if (startMax != RangeModel.NO_BOUNDARY) {
+                mInitialStartValue = Math.min(mInitialStartValue, startMax);
             }
 
-            if (mProgressEndMinValue != -1) {
-                mInitialEndValue = Math.max(mInitialEndValue, mProgressEndMinValue);
+            if (endMin != RangeModel.NO_BOUNDARY) {
+                mInitialEndValue = Math.max(mInitialEndValue, endMin);
             }
-        } else if (mMinMaxStepSize != 0) {
-            if (mInitialEndValue - mInitialStartValue < mMinMaxStepSize) {
-                mInitialStartValue = Math.max(0, mInitialEndValue - mMinMaxStepSize);
-                mInitialEndValue = Math.min(getMax(), mInitialStartValue + mMinMaxStepSize);
+        } else if (minMaxStepSize != 0) {
+            if (mInitialEndValue - mInitialStartValue < minMaxStepSize) {
+                mInitialStartValue = Math.max(0, mInitialEndValue - minMaxStepSize);
+                mInitialEndValue = Math.min(getMax(), mInitialStartValue + minMaxStepSize);
             }
         }
     }
@@ -216,29 +350,30 @@ public class RangeSeekBar extends RangeProgressBar {
      */
     public void setStepSize(final int value) {
         logger.info("setStepSize(%d)", value);
+        checkIntRangeMode("setStepSize");
 
-        mStepSize = value;
+        mRangeModel.setStepSize(value);
         setMinMaxStepSize(getMinMapStepSize());
         setProgress(getProgressStart(), getProgressEnd());
     }
 
     @Override
     public void setMinMaxStepSize(final int value) {
+        // the model makes sure the value is a multiple of the step size
         super.setMinMaxStepSize(value);
-
-        // be sure is a multiple of stepsize
-        if (mMinMaxStepSize != 0) {
-            if (mMinMaxStepSize % mStepSize != 0) {
-                mMinMaxStepSize = Math.max(mStepSize, mMinMaxStepSize - (mMinMaxStepSize % mStepSize));
-            }
-        }
-        logger.info("setMinMaxStepSize(%d --> %d)", value, mMinMaxStepSize);
+        logger.info("setMinMaxStepSize(%d --> %d)", value, getMinMapStepSize());
 
         if (mInitialProgressDone) {
             setProgress(getProgressStart(), getProgressEnd());
         }
     }
 
+    @Override
+    long applyProgress(int startValue, int endValue) {
+        // step size, min diff and boundaries
+        return mRangeModel.apply(startValue, endValue);
+    }
+
     @Override
     public void setProgressStartEndBoundaries(final int startMax, final int endMin) {
         super.setProgressStartEndBoundaries(startMax, endMin);
@@ -260,8 +395,149 @@ public class RangeSeekBar extends RangeProgressBar {
     public void onProgressRefresh(final boolean fromUser, final int startValue, final int endValue) {
         super.onProgressRefresh(fromUser, startValue, endValue);
 
-        if (mOnRangeSeekBarChangeListener != null) {
-            mOnRangeSeekBarChangeListener.onProgressChanged(this, startValue, endValue, fromUser);
+        if (mProgressDispatcher == null) {
+            // invoked by the super constructor, there are no listeners yet
+            return;
+        }
+
+        mProgressDispatcher.onProgressChanged(startValue, endValue, fromUser);
+
+        if (mRangeIndex != null) {
+            updateRangeCount();
+        }
+    }
+
+    private void dispatchProgressChanged(int startValue, int endValue, boolean fromUser) {
+        final RangeTrace.Tracer tracer = RangeTrace.begin(RangeTrace.LISTENER);
+        try {
+            final RangeSeekBarMetrics metrics = getMetrics();
+            final long startTime = metrics != null ? System.nanoTime() : 0;
+
+            if (mOnRangeSeekBarChangeListener != null) {
+                mOnRangeSeekBarChangeListener.onProgressChanged(this, startValue, endValue, fromUser);
+            }
+
+            if (mOnLongRangeSeekBarChangeListener != null && isLongRangeMode()) {
+                getLongProgress(mLongRange);
+                mOnLongRangeSeekBarChangeListener.onProgressChanged(this, mLongRange[0], mLongRange[1], fromUser);
+            }
+
+            if (mExecutorDispatcher != null) {
+                mExecutorDispatcher.offer(startValue, endValue, fromUser);
+            }
+
+            final OnRangeSeekBarChangeListener[] listeners = mListeners.get();
+            for (int i = 0; i < listeners.length; i++) {
+                listeners[i].onProgressChanged(this, startValue, endValue, fromUser);
+            }
+
+            if (metrics != null) {
+                metrics.recordListener(System.nanoTime() - startTime);
+            }
+        } finally {
+            RangeTrace.end(tracer);
+        }
+    }
+
+    @Override
+    void onProgressAnimationEnd() {
+        super.onProgressAnimationEnd();
+        if (!mIsDragging) {
+            mProgressDispatcher.settle(getProgressStart(), getProgressEnd());
+        }
+    }
+
+    public void setOnRangeSettledListener(OnRangeSettledListener l) {
+        mOnRangeSettledListener = l;
+    }
+
+    /**
+     * Limit the number of onProgressChanged calls while the values keep changing. The last
+     * values are always delivered.
+     *
+     * @param maxPerSecond max number of calls per second, 0 (the default) to disable
+     */
+    public void setProgressDispatchThrottle(int maxPerSecond) {
+        mProgressDispatcher.flush();
+        mProgressDispatcher.setThrottle(maxPerSecond);
+        mProgressDispatcher.reset();
+    }
+
+    /**
+     * Deliver onProgressChanged only once the values didn't change for the given time.
+     * If a throttle is set too, the throttled calls continue while the values change.
+     *
+     * @param idleMillis idle time, 0 (the default) to disable
+     */
+    public void setProgressDispatchDebounce(long idleMillis) {
+        mProgressDispatcher.flush();
+        mProgressDispatcher.setDebounce(idleMillis);
+        mProgressDispatcher.reset();
+    }
+
+    /**
+     * When true, onProgressChanged is not invoked with the same values of the previous call
+     */
+    public void setProgressDispatchDistinct(boolean distinct) {
+        mProgressDispatcher.flush();
+        mProgressDispatcher.setDistinct(distinct);
+        mProgressDispatcher.reset();
+    }
+
+    /**
+     * Attach an index of item values: the listener receives the number of items in the current range
+     * every time the range changes (at most once per frame while dragging). Values are compared with
+     * the progress values, or with the long values in long range mode.<br />
+     * The listener is invoked on the ui thread, and only when the count actually changes.<br />
+     * The same index can be attached to several seek bars.
+     *
+     * @param index    the index, or null to detach the current one
+     * @param listener listener notified with the count
+     */
+    public void setRangeIndex(@Nullable RangeIndex index, @Nullable OnRangeCountChangeListener listener) {
+        if (mRangeIndex != null) {
+            mRangeIndex.removeOnReadyListener(mRangeIndexReadyListener);
+            removeCallbacks(mRangeIndexReadyRunnable);
+        }
+
+        mRangeIndex = index;
+        mOnRangeCountChangeListener = listener;
+        mRangeCount = RangeIndex.NOT_READY;
+
+        if (index != null && isAttachedToWindow()) {
+            // the index is sorted in background, deliver the first count once ready
+            index.addOnReadyListener(mRangeIndexReadyListener);
+        }
+    }
+
+    /**
+     * @return the number of items of the attached {@link RangeIndex} in the current range, or
+     * {@link RangeIndex#NOT_READY}
+     */
+    public int getRangeCount() {
+        return mRangeCount;
+    }
+
+    private void updateRangeCount() {
+        final RangeIndex index = mRangeIndex;
+        if (index == null) {
+            return;
+        }
+
+        final int count;
+        if (isLongRangeMode()) {
+            getLongProgress(mLongRange);
+            count = index.count(mLongRange[0], mLongRange[1]);
+        } else {
+            final long range = mRangeModel.getRange();
+            count = index.count(RangeModel.start(range), RangeModel.end(range));
+        }
+
+        if (count != mRangeCount) {
+            mRangeCount = count;
+            if (mOnRangeCountChangeListener != null) {
+                mOnRangeCountChangeListener.onRangeCountChanged(this, count);
+            }
         }
     }
 
@@ -269,6 +545,53 @@ public class RangeSeekBar extends RangeProgressBar {
         mOnRangeSeekBarChangeListener = l;
     }
 
+    public void setOnLongRangeSeekBarChangeListener(OnLongRangeSeekBarChangeListener l) {
+        mOnLongRangeSeekBarChangeListener = l;
+    }
+
+    /**
+     * Add a listener, notified together with the one set with
+     * {@link #setOnRangeSeekBarChangeListener(OnRangeSeekBarChangeListener)}.<br />
+     * Listeners can be added or removed from any thread, also from inside a callback: a listener removed
+     * during a dispatch still receives the event being dispatched. Adding the same listener twice has no effect.
+     */
+    public void addOnRangeSeekBarChangeListener(@NonNull OnRangeSeekBarChangeListener listener) {
+        mListeners.add(listener);
+    }
+
+    public void removeOnRangeSeekBarChangeListener(@NonNull OnRangeSeekBarChangeListener listener) {
+        mListeners.remove(listener);
+    }
+
+    int getOnRangeSeekBarChangeListenerCount() {
+        return mListeners.get().length;
+    }
+
+    /**
+     * Deliver the range changes to a listener on the given executor instead of the ui thread, so that
+     * heavy listeners (filtering, query building) don't slow down the drag.<br />
+     * The changes go through the same throttle/debounce/distinct policies of the other listeners, then
+     * they are conflated: while a call is queued or running, newer changes replace the pending one.
+     * Calls never overlap, even on a thread pool, and they follow the order of the changes; intermediate
+     * values can be skipped but the newest range is always delivered.<br />
+     * Replacing or removing the listener drops its pending change. A call which is already running is
+     * not interrupted, so it can complete after this method returns.
+     *
+     * @param executor executor used to invoke the listener
+     * @param listener the listener, or null to remove the current one
+     */
+    public void setOnRangeChangeListener(@NonNull Executor executor, @Nullable OnAsyncRangeChangeListener listener) {
+        if (mExecutorDispatcher != null) {
+            mExecutorDispatcher.cancel();
+            mExecutorDispatcher = null;
+        }
+
+        if (listener != null) {
+            mExecutorDispatcher = new ExecutorDispatcher(
+                executor, (start, end, fromUser) -> listener.onRangeChanged(this, start, end, fromUser));
+        }
+    }
+
     /**
      * Sets the thumb that will be drawn at the end of the progress meter within the SeekBar.
      * <p>
@@ -451,6 +774,7 @@ public class RangeSeekBar extends RangeProgressBar {
             tickMark.setBounds(-halfW, -halfH, halfW, halfH);
             applyTickMarkTint();
         }
+        mTickMarkLayer.invalidate();
         invalidate();
     }
 
@@ -461,6 +785,19 @@ public class RangeSeekBar extends RangeProgressBar {
         return mTickMark;
     }
 
+    /**
+     * Set the minimum distance, in pixels, between two tick marks. If the max value is too big
+     * for the available width then only every n-th tick mark will be drawn.
+     */
+    public void setTickMarkMinSpacing(int value) {
+        mTickMarkLayer.setMinSpacing(value);
+        invalidate();
+    }
+
+    public int getTickMarkMinSpacing() {
+        return mTickMarkLayer.getMinSpacing();
+    }
+
     /**
      * Applies a tint to the tick mark drawable. Does not modify the current tint
      * mode, which is {@link PorterDuff.Mode#SRC_IN} by default.
@@ -541,7 +878,28 @@ public class RangeSeekBar extends RangeProgressBar {
             if (mTickMark.isStateful()) {
                 mTickMark.setState(getDrawableState());
             }
+
+            mTickMarkLayer.invalidate();
+        }
+    }
+
+    /**
+     * Enable or disable the touch batching mode.<br />
+     * When enabled all the move events (and their historical samples) received within the same
+     * frame are folded together: the thumb position is resolved, and the listener notified, at most once per frame.
+     * Useful with high rate touch digitizers, which deliver several move events per display frame.
+     *
+     * @param enabled true to enable the touch batching
+     */
+    public void setTouchBatchingEnabled(boolean enabled) {
+        if (!enabled) {
+            flushPendingTouch();
         }
+        mTouchBatchingEnabled = enabled;
+    }
+
+    public boolean isTouchBatchingEnabled() {
+        return mTouchBatchingEnabled;
     }
 
     public void setKeyProgressIncrement(int increment) {
@@ -552,7 +910,7 @@ public class RangeSeekBar extends RangeProgressBar {
         return mKeyProgressIncrement;
     }
 
-    public synchronized void setMax(int max) {
+    public void setMax(int max) {
         super.setMax(max);
 
         if ((mKeyProgressIncrement == 0) || (getMax() / mKeyProgressIncrement > 20)) {
@@ -604,6 +962,7 @@ public class RangeSeekBar extends RangeProgressBar {
         final Drawable tickMark = mTickMark;
         if (tickMark != null && tickMark.isStateful()
             && tickMark.setState(getDrawableState())) {
+            mTickMarkLayer.invalidate();
             invalidateDrawable(tickMark);
         }
     }
@@ -635,13 +994,35 @@ public class RangeSeekBar extends RangeProgressBar {
 
         if (id == android.R.id.progress) {
             if (mThumbStart != null && mThumbEnd != null) {
-                setThumbPos(getWidth(), mThumbStart, scaleStart, WhichThumb.Start, Integer.MIN_VALUE);
-                setThumbPos(getWidth(), mThumbEnd, scaleEnd, WhichThumb.End, Integer.MIN_VALUE);
-                invalidate();
+                moveThumb(mThumbStart, scaleStart, WhichThumb.Start);
+                moveThumb(mThumbEnd, scaleEnd, WhichThumb.End);
             }
         }
     }
 
+    /**
+     * Move the thumb to its new position and add both its old and new bounds to the dirty region,
+     * only if the thumb actually moved.
+     */
+    private void moveThumb(Drawable thumb, float scale, WhichThumb which) {
+        final Rect bounds = mTempRect2;
+        thumb.copyBounds(bounds);
+
+        setThumbPos(getWidth(), thumb, scale, which, Integer.MIN_VALUE);
+
+        final Rect newBounds = thumb.getBounds();
+        if (!bounds.equals(newBounds)) {
+            bounds.union(newBounds);
+            final int offsetX = mPaddingLeft - mThumbOffset;
+            addDirtyRegion(
+                bounds.left + offsetX,
+                bounds.top + mPaddingTop,
+                bounds.right + offsetX,
+                bounds.bottom + mPaddingTop
+            );
+        }
+    }
+
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
@@ -695,13 +1076,11 @@ public class RangeSeekBar extends RangeProgressBar {
     }
 
     private float getScaleStart() {
-        final float max = getMax();
-        return max > 0 ? getProgressStart() / max : 0;
+        return valueToScale(getProgressStart());
     }
 
     private float getScaleEnd() {
-        final float max = getMax();
-        return max > 0 ? getProgressEnd() / max : 0;
+        return valueToScale(getProgressEnd());
     }
 
     /**
@@ -767,9 +1146,14 @@ public class RangeSeekBar extends RangeProgressBar {
     }
 
     @Override
-    protected synchronized void onDraw(Canvas canvas) {
-        super.onDraw(canvas);
-        drawThumb(canvas);
+    protected void onDraw(Canvas canvas) {
+        final RangeTrace.Tracer tracer = RangeTrace.begin(RangeTrace.SEEKBAR_ON_DRAW);
+        try {
+            super.onDraw(canvas);
+            drawThumb(canvas);
+        } finally {
+            RangeTrace.end(tracer);
+        }
     }
 
     @Override
@@ -804,15 +1188,12 @@ public class RangeSeekBar extends RangeProgressBar {
 
     void drawTickMarks(Canvas canvas) {
         if (mTickMark != null) {
-            final float count = getMax();
-            if (count > 1) {
-                final float spacing = (getWidth() - (mPaddingLeft + mPaddingRight)) / (count / mStepSize);
+            final int max = getMax();
+            if (max > 1) {
                 final int saveCount = canvas.save();
                 canvas.translate(mPaddingLeft, getHeight() / 2f);
-                for (int i = 0; i <= count; i++) {
-                    mTickMark.draw(canvas);
-                    canvas.translate(spacing, 0);
-                }
+                mTickMarkLayer.draw(
+                    canvas, mTickMark, getWidth() - (mPaddingLeft + mPaddingRight), max, mRangeModel.getStepSize());
                 canvas.restoreToCount(saveCount);
             }
         }
@@ -829,24 +1210,29 @@ public class RangeSeekBar extends RangeProgressBar {
     }
 
     @Override
-    protected synchronized void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        Drawable d = getCurrentDrawable();
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        final RangeTrace.Tracer tracer = RangeTrace.begin(RangeTrace.SEEKBAR_ON_MEASURE);
+        try {
+            Drawable d = getCurrentDrawable();
+
+            int thumbHeight = mThumbStart == null ? 0 : mThumbStart.getIntrinsicHeight();
+            int dw = 0;
+            int dh = 0;
+            if (d != null) {
+                dw = Math.max(mMinWidth, Math.min(mMaxWidth, d.getIntrinsicWidth()));
+                dh = Math.max(mMinHeight, Math.min(mMaxHeight, d.getIntrinsicHeight()));
+                dh = Math.max(thumbHeight, dh);
+            }
+            dw += mPaddingLeft + mPaddingRight;
+            dh += mPaddingTop + mPaddingBottom;
 
-        int thumbHeight = mThumbStart == null ? 0 : mThumbStart.getIntrinsicHeight();
-        int dw = 0;
-        int dh = 0;
-        if (d != null) {
-            dw = Math.max(mMinWidth, Math.min(mMaxWidth, d.getIntrinsicWidth()));
-            dh = Math.max(mMinHeight, Math.min(mMaxHeight, d.getIntrinsicHeight()));
-            dh = Math.max(thumbHeight, dh);
+            setMeasuredDimension(
+                resolveSizeAndState(dw, widthMeasureSpec, 0),
+                resolveSizeAndState(dh, heightMeasureSpec, 0)
+            );
+        } finally {
+            RangeTrace.end(tracer);
         }
-        dw += mPaddingLeft + mPaddingRight;
-        dh += mPaddingTop + mPaddingBottom;
-
-        setMeasuredDimension(
-            resolveSizeAndState(dw, widthMeasureSpec, 0),
-            resolveSizeAndState(dh, heightMeasureSpec, 0)
-        );
     }
 
     @SuppressLint ("ClickableViewAccessibility")
@@ -869,7 +1255,11 @@ public class RangeSeekBar extends RangeProgressBar {
 
             case MotionEvent.ACTION_MOVE:
                 if (mIsDragging) {
-                    trackTouchEvent(event);
+                    if (mTouchBatchingEnabled) {
+                        queueTouchEvent(event);
+                    } else {
+                        trackTouchEvent(event);
+                    }
                 } else {
                     final float x = event.getX();
                     if (Math.abs(x - mTouchDownX) > mScaledTouchSlop) {
@@ -879,6 +1269,9 @@ public class RangeSeekBar extends RangeProgressBar {
                 break;
 
             case MotionEvent.ACTION_UP:
+                // the up event carries the final position anyway
+                cancelPendingTouch();
+
                 if (mIsDragging) {
                     trackTouchEvent(event);
                     onStopTrackingTouch();
@@ -898,6 +1291,8 @@ public class RangeSeekBar extends RangeProgressBar {
                 break;
 
             case MotionEvent.ACTION_CANCEL:
+                flushPendingTouch();
+
                 if (mIsDragging) {
                     onStopTrackingTouch();
                     setPressed(false);
@@ -970,97 +1365,92 @@ public class RangeSeekBar extends RangeProgressBar {
 
     private void setHotspot(float x, float y) { }
 
-    private void trackTouchEvent(MotionEvent event) {
-        if (null == mThumbStart || null == mThumbEnd) {
-            return;
+    /**
+     * Accumulate the event samples, the position will be resolved on the next frame
+     */
+    private void queueTouchEvent(MotionEvent event) {
+        // the historical samples of this event, and the samples of the events already
+        // queued in this frame, are all older than the current position: only the newest one is kept
+        mPendingTouchX = event.getX();
+        mPendingTouchY = event.getY();
+        onInputEvent(event.getEventTime());
+
+        final RangeSeekBarMetrics metrics = getMetrics();
+        if (metrics != null) {
+            metrics.recordUpdatesCoalesced(event.getHistorySize() + (mTouchPending ? 1 : 0));
         }
 
-        float x = event.getX();
-        float y = event.getY();
-        final int width = getWidth();
-
-        if (mWhichThumb == WhichThumb.End) {
-            x -= getProgressOffset();
+        if (!mTouchPending) {
+            mTouchPending = true;
+            postOnAnimation(mTouchBatchRunnable);
         }
+    }
 
-        final int thumbWidth = mThumbStart.getIntrinsicWidth();
-        final int availableWidth = width - mPaddingLeft - mPaddingRight - getProgressOffset() - thumbWidth + mThumbOffset * 2;
-
-        x -= thumbWidth / 2f;
-        x += mThumbOffset;
-
-        final float scale;
-        float progress = 0.0f;
-
-        if (x < mPaddingLeft) {
-            scale = 0.0f;
-        } else if (x > width - mPaddingRight) {
-            scale = 1.0f;
-        } else {
-            scale = (x - mPaddingLeft) / (float) availableWidth;
-            progress = mTouchProgressOffset;
+    private void flushPendingTouch() {
+        if (mTouchPending) {
+            mTouchPending = false;
+            removeCallbacks(mTouchBatchRunnable);
+            trackTouchEvent(mPendingTouchX, mPendingTouchY);
         }
+    }
 
-        final float max = getMax();
-        progress += scale * max;
-
-        setHotspot(x, y);
-
-        if (mWhichThumb == WhichThumb.Start) {
-            progress = MathUtils.constrain(progress, 0, getProgressStartMaxValue());
-            setProgressInternal(Math.round(progress), getProgressEnd(), true, false);
-        } else if (mWhichThumb == WhichThumb.End) {
-            progress = MathUtils.constrain(progress, getProgressEndMinValue(), getMax());
-            setProgressInternal(getProgressStart(), Math.round(progress), true, false);
+    private void cancelPendingTouch() {
+        if (mTouchPending) {
+            mTouchPending = false;
+            removeCallbacks(mTouchBatchRunnable);
         }
     }
 
-    @Override
-    synchronized boolean setProgressInternal(
-        int startValue, int endValue, final boolean fromUser, final boolean animate) {
-
-        if (mStepSize > 1) {
-            final int remainderStart = startValue % mStepSize;
+    private void trackTouchEvent(MotionEvent event) {
+        onInputEvent(event.getEventTime());
+        trackTouchEvent(event.getX(), event.getY());
+    }
 
-            if (remainderStart > 0) {
-                if ((float) remainderStart / mStepSize > 0.5) {
-                    // value + (step-(value%step))
-                    startValue = startValue + (mStepSize - remainderStart);
-                } else {
-                    // value - (value%step)
-                    startValue = startValue - remainderStart;
-                }
+    private void trackTouchEvent(float x, float y) {
+        final RangeTrace.Tracer tracer = RangeTrace.begin(RangeTrace.TRACK_TOUCH_EVENT);
+        try {
+            if (null == mThumbStart || null == mThumbEnd) {
+                return;
             }
 
-            int remainderEnd = endValue % mStepSize;
+            final int width = getWidth();
 
-            if (remainderEnd > 0) {
-                if ((float) remainderEnd / mStepSize > 0.5) {
-                    endValue = endValue + (mStepSize - remainderEnd);
-                } else {
-                    endValue = endValue - remainderEnd;
-                }
+            if (mWhichThumb == WhichThumb.End) {
+                x -= getProgressOffset();
             }
-        }
 
-        if (mProgressStartMaxValue != -1 || mProgressEndMinValue != -1) {
-            if (mProgressStartMaxValue != -1) {
-                startValue = MathUtils.constrain(startValue, 0, mProgressStartMaxValue);
+            final int thumbWidth = mThumbStart.getIntrinsicWidth();
+            final int availableWidth = width - mPaddingLeft - mPaddingRight - getProgressOffset() - thumbWidth + mThumbOffset * 2;
 
+            x -= thumbWidth / 2f;
+            x += mThumbOffset;
+
+            final float scale;
+            float progress = 0.0f;
+
+            if (x < mPaddingLeft) {
+                scale = 0.0f;
+            } else if (x > width - mPaddingRight) {
+                scale = 1.0f;
+            } else {
+                scale = (x - mPaddingLeft) / (float) availableWidth;
+                progress = mTouchProgressOffset;
             }
-            if (mProgressEndMinValue != -1) {
-                endValue = MathUtils.constrain(endValue, mProgressEndMinValue, getMax());
-            }
-        } else if (mMinMaxStepSize != 0) {
-            if (endValue - startValue < mMinMaxStepSize) {
-                endValue = startValue + getMinMapStepSize();
-            }
-        }
 
-        //        startValue = MathUtils.constrain(startValue, 0, getProgressStartMaxValue());
-        //        endValue = MathUtils.constrain(endValue, getProgressEndMinValue(), getMax());
+            progress += scaleToValue(scale);
 
-        return super.setProgressInternal(startValue, endValue, fromUser, animate);
+            setHotspot(x, y);
+
+            if (mWhichThumb == WhichThumb.Start) {
+                progress = MathUtils.constrain(progress, 0, getProgressStartMaxValue());
+                setProgressInternal(Math.round(progress), getProgressEnd(), true, false);
+            } else if (mWhichThumb == WhichThumb.End) {
+                progress = MathUtils.constrain(progress, getProgressEndMinValue(), getMax());
+                setProgressInternal(getProgressStart(), Math.round(progress), true, false);
+            }
+        } finally {
+            RangeTrace.end(tracer);
+        }
     }
 
     private void attemptClaimDrag() {
@@ -1074,6 +1464,10 @@ public class RangeSeekBar extends RangeProgressBar {
         if (mOnRangeSeekBarChangeListener != null) {
             mOnRangeSeekBarChangeListener.onStartTrackingTouch(this);
         }
+        final OnRangeSeekBarChangeListener[] listeners = mListeners.get();
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].onStartTrackingTouch(this);
+        }
     }
 
     void onStopTrackingTouch() {
@@ -1081,9 +1475,40 @@ public class RangeSeekBar extends RangeProgressBar {
         if (mOnRangeSeekBarChangeListener != null) {
             mOnRangeSeekBarChangeListener.onStopTrackingTouch(this);
         }
+        final OnRangeSeekBarChangeListener[] listeners = mListeners.get();
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].onStopTrackingTouch(this);
+        }
+        mProgressDispatcher.settle(getProgressStart(), getProgressEnd());
     }
 
     void onKeyChange() {
+        // key presses are discrete changes
+        if (!isProgressAnimationRunning()) {
+            mProgressDispatcher.settle(getProgressStart(), getProgressEnd());
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (mRangeIndex != null) {
+            // invoked right away if the index was sorted while detached
+            mRangeIndex.addOnReadyListener(mRangeIndexReadyListener);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        cancelPendingTouch();
+        cancelPendingScroll();
+        // don't lose the last values waiting for the throttle/debounce timer
+        mProgressDispatcher.flush();
+        if (mRangeIndex != null) {
+            mRangeIndex.removeOnReadyListener(mRangeIndexReadyListener);
+            removeCallbacks(mRangeIndexReadyRunnable);
+        }
+        super.onDetachedFromWindow();
     }
 
     @Override
@@ -1109,22 +1534,276 @@ public class RangeSeekBar extends RangeProgressBar {
         return super.onKeyDown(keyCode, event);
     }
 
+    @Override
+    public boolean onGenericMotionEvent(MotionEvent event) {
+        if ((event.getSource() & InputDevice.SOURCE_CLASS_POINTER) != 0
+            && event.getActionMasked() == MotionEvent.ACTION_SCROLL
+            && mIsUserSeekable && isEnabled() && !mIsDragging) {
+
+            float delta = event.getAxisValue(MotionEvent.AXIS_VSCROLL);
+            final float horizontal = event.getAxisValue(MotionEvent.AXIS_HSCROLL);
+            delta += isLayoutRtl() ? -horizontal : horizontal;
+
+            if (delta != 0 && queueScroll(event, delta)) {
+                return true;
+            }
+        }
+        return super.onGenericMotionEvent(event);
+    }
+
+    /**
+     * Accumulate the wheel delta, the progress is updated once on the next frame
+     *
+     * @return false if there is no thumb to move
+     */
+    private boolean queueScroll(MotionEvent event, float delta) {
+        if (null == mThumbStart || null == mThumbEnd) {
+            return false;
+        }
+
+        WhichThumb thumb = mAccessibilityHelper.getFocusedThumb();
+        if (thumb == WhichThumb.None) {
+            thumb = getNearestThumb(event.getX() - (mPaddingLeft - mThumbOffset), event.getY() - mPaddingTop);
+        }
+
+        if (thumb != mScrollThumb) {
+            // apply what was accumulated for the other thumb first
+            flushPendingScroll();
+            mPendingScroll = 0;
+            mScrollThumb = thumb;
+        }
+
+        mPendingScroll += delta;
+        onInputEvent(event.getEventTime());
+
+        if (!mScrollPending) {
+            mScrollPending = true;
+            postOnAnimation(mScrollBatchRunnable);
+        }
+
+        removeCallbacks(mScrollSettleRunnable);
+        postDelayed(mScrollSettleRunnable, SCROLL_SETTLE_DELAY);
+        return true;
+    }
+
+    private void flushPendingScroll() {
+        if (!mScrollPending) {
+            return;
+        }
+
+        mScrollPending = false;
+        removeCallbacks(mScrollBatchRunnable);
+
+        // high resolution deltas are kept until they add up to a whole step
+        final int steps = (int) mPendingScroll;
+        if (steps == 0) {
+            return;
+        }
+        mPendingScroll -= steps;
+
+        final int increment = steps * Math.max(mRangeModel.getStepSize(), Math.max(1, mKeyProgressIncrement));
+
+        if (mScrollThumb == WhichThumb.Start) {
+            setProgressInternal(
+                MathUtils.constrain(getProgressStart() + increment, 0, getProgressStartMaxValue()), getProgressEnd(), true, false);
+        } else if (mScrollThumb == WhichThumb.End) {
+            setProgressInternal(
+                getProgressStart(), MathUtils.constrain(getProgressEnd() + increment, getProgressEndMinValue(), getMax()), true, false);
+        }
+    }
+
+    private void cancelPendingScroll() {
+        mScrollPending = false;
+        mPendingScroll = 0;
+        mScrollThumb = WhichThumb.None;
+        removeCallbacks(mScrollBatchRunnable);
+        removeCallbacks(mScrollSettleRunnable);
+    }
+
     @Override
     public CharSequence getAccessibilityClassName() {
         return RangeSeekBar.class.getName();
     }
 
     @Override
-    public void onInitializeAccessibilityNodeInfo(AccessibilityNodeInfo info) {
-        super.onInitializeAccessibilityNodeInfo(info);
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
-            info.addAction(AccessibilityNodeInfo.AccessibilityAction.ACTION_SET_PROGRESS);
-        }
+    protected boolean dispatchHoverEvent(MotionEvent event) {
+        return mAccessibilityHelper.dispatchHoverEvent(event) || super.dispatchHoverEvent(event);
     }
 
     @Override
-    public boolean performAccessibilityAction(int action, Bundle arguments) {
-        return super.performAccessibilityAction(action, arguments);
-        // TODO: to be implemented
+    protected void onFocusChanged(boolean gainFocus, int direction, @Nullable Rect previouslyFocusedRect) {
+        super.onFocusChanged(gainFocus, direction, previouslyFocusedRect);
+        mAccessibilityHelper.onFocusChanged(gainFocus, direction, previouslyFocusedRect);
+    }
+
+    @Override
+    void sendProgressAccessibilityEvent() {
+        if (mAccessibilityHelper != null) {
+            mAccessibilityHelper.sendChangedThumbEvents();
+        }
+    }
+
+    /**
+     * Exposes each thumb as a virtual view, with its own range info and the set progress
+     * and scroll actions.
+     */
+    private class AccessibilityHelper extends ExploreByTouchHelper {
+        static final int THUMB_START = 0;
+        static final int THUMB_END = 1;
+
+        private final Rect mTempRect = new Rect();
+        private int mAnnouncedStart = Integer.MIN_VALUE;
+        private int mAnnouncedEnd = Integer.MIN_VALUE;
+
+        AccessibilityHelper() {
+            super(RangeSeekBar.this);
+        }
+
+        /**
+         * @return the thumb with keyboard or accessibility focus, if any
+         */
+        WhichThumb getFocusedThumb() {
+            int id = getKeyboardFocusedVirtualViewId();
+            if (id == INVALID_ID) {
+                id = getAccessibilityFocusedVirtualViewId();
+            }
+            return id == THUMB_START ? WhichThumb.Start : id == THUMB_END ? WhichThumb.End : WhichThumb.None;
+        }
+
+        /**
+         * Send an event for the thumbs which moved since the last event
+         */
+        void sendChangedThumbEvents() {
+            final int start = getProgressStart();
+            final int end = getProgressEnd();
+            if (start != mAnnouncedStart) {
+                mAnnouncedStart = start;
+                sendEventForVirtualView(THUMB_START, AccessibilityEvent.TYPE_VIEW_SELECTED);
+            }
+            if (end != mAnnouncedEnd) {
+                mAnnouncedEnd = end;
+                sendEventForVirtualView(THUMB_END, AccessibilityEvent.TYPE_VIEW_SELECTED);
+            }
+        }
+
+        @Override
+        protected int getVirtualViewAt(float x, float y) {
+            if (getThumbBounds(THUMB_START, mTempRect) && mTempRect.contains((int) x, (int) y)) {
+                return THUMB_START;
+            }
+            if (getThumbBounds(THUMB_END, mTempRect) && mTempRect.contains((int) x, (int) y)) {
+                return THUMB_END;
+            }
+            return INVALID_ID;
+        }
+
+        @Override
+        protected void getVisibleVirtualViews(List<Integer> virtualViewIds) {
+            virtualViewIds.add(THUMB_START);
+            virtualViewIds.add(THUMB_END);
+        }
+
+        @Override
+        protected void onPopulateEventForVirtualView(int virtualViewId, @NonNull AccessibilityEvent event) {
+            event.setClassName(SeekBar.class.getName());
+            event.setItemCount(getMax());
+            event.setCurrentItemIndex(virtualViewId == THUMB_START ? getProgressStart() : getProgressEnd());
+            event.setContentDescription(getThumbDescription(virtualViewId));
+        }
+
+        @Override
+        protected void onPopulateNodeForVirtualView(int virtualViewId, @NonNull AccessibilityNodeInfoCompat node) {
+            final int value;
+            final int min;
+            final int max;
+            if (virtualViewId == THUMB_START) {
+                value = getProgressStart();
+                min = 0;
+                max = getProgressStartMaxValue();
+            } else {
+                value = getProgressEnd();
+                min = getProgressEndMinValue();
+                max = getMax();
+            }
+
+            node.setClassName(SeekBar.class.getName());
+            node.setContentDescription(getThumbDescription(virtualViewId));
+            node.setRangeInfo(RangeInfoCompat.obtain(RangeInfoCompat.RANGE_TYPE_INT, min, max, value));
+            node.setFocusable(true);
+            node.setEnabled(isEnabled());
+
+            if (!getThumbBounds(virtualViewId, mTempRect)) {
+                mTempRect.set(0, 0, 1, 1);
+            }
+            node.setBoundsInParent(mTempRect);
+
+            if (isEnabled()) {
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+                    node.addAction(AccessibilityActionCompat.ACTION_SET_PROGRESS);
+                }
+                if (value > min) {
+                    node.addAction(AccessibilityActionCompat.ACTION_SCROLL_BACKWARD);
+                }
+                if (value < max) {
+                    node.addAction(AccessibilityActionCompat.ACTION_SCROLL_FORWARD);
+                }
+            }
+        }
+
+        @Override
+        protected boolean onPerformActionForVirtualView(int virtualViewId, int action, @Nullable Bundle arguments) {
+            if (!isEnabled()) {
+                return false;
+            }
+
+            final int current = virtualViewId == THUMB_START ? getProgressStart() : getProgressEnd();
+            final int value;
+
+            if (action == AccessibilityNodeInfoCompat.ACTION_SCROLL_FORWARD) {
+                value = current + Math.max(1, mKeyProgressIncrement);
+            } else if (action == AccessibilityNodeInfoCompat.ACTION_SCROLL_BACKWARD) {
+                value = current - Math.max(1, mKeyProgressIncrement);
+            } else if (action == android.R.id.accessibilityActionSetProgress) {
+                if (arguments == null || !arguments.containsKey(AccessibilityNodeInfo.ACTION_ARGUMENT_PROGRESS_VALUE)) {
+                    return false;
+                }
+                value = (int) arguments.getFloat(AccessibilityNodeInfo.ACTION_ARGUMENT_PROGRESS_VALUE);
+            } else {
+                return false;
+            }
+
+            final boolean changed;
+            if (virtualViewId == THUMB_START) {
+                changed = setProgressInternal(
+                    MathUtils.constrain(value, 0, getProgressStartMaxValue()), getProgressEnd(), true, false);
+            } else {
+                changed = setProgressInternal(
+                    getProgressStart(), MathUtils.constrain(value, getProgressEndMinValue(), getMax()), true, false);
+            }
+
+            if (changed) {
+                onKeyChange();
+                invalidateVirtualView(virtualViewId);
+            }
+            return changed;
+        }
+
+        private CharSequence getThumbDescription(int virtualViewId) {
+            return getResources().getString(
+                virtualViewId == THUMB_START ? R.string.sephiroth_range_seekbar_thumb_start : R.string.sephiroth_range_seekbar_thumb_end);
+        }
+
+        /**
+         * @return false if the thumbs are not available
+         */
+        private boolean getThumbBounds(int virtualViewId, Rect out) {
+            final Drawable thumb = virtualViewId == THUMB_START ? mThumbStart : mThumbEnd;
+            if (thumb == null) {
+                return false;
+            }
+            thumb.copyBounds(out);
+            out.offset(mPaddingLeft - mThumbOffset, mPaddingTop);
+            return true;
+        }
     }
 }
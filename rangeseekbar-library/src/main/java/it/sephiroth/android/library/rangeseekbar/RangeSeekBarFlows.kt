@@ -0,0 +1,99 @@
+@file:JvmName("RangeSeekBarFlows")
+
+package it.sephiroth.android.library.rangeseekbar
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.channels.awaitClose
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.callbackFlow
+import kotlinx.coroutines.flow.collect
+import kotlinx.coroutines.flow.conflate
+import kotlinx.coroutines.launch
+
+/**
+ * Range of a [RangeSeekBar], as emitted by [rangeFlow]
+ *
+ * @property fromUser true if the change was initiated by the user
+ */
+data class Range(val start: Int, val end: Int, val fromUser: Boolean)
+
+/**
+ * Drag events emitted by [trackingFlow]
+ */
+enum class TrackingEvent {
+    Started, Stopped
+}
+
+/**
+ * Cold flow of the range changes, after the dispatch policies of the seek bar
+ * (throttle, debounce, distinct).<br />
+ * The flow is conflated: a slow collector only receives the newest range (and its fromUser). The seek bar is
+ * observed only while the flow is collected, so nothing is allocated when nobody collects it.
+ * Must be collected on the main thread.
+ *
+ * @param emitCurrent emit the current range as the first value
+ */
+@ExperimentalCoroutinesApi
+fun RangeSeekBar.rangeFlow(emitCurrent: Boolean = true): Flow<Range> = callbackFlow {
+    val observer = object : RangeSeekBar.OnRangeSeekBarChangeListener {
+        override fun onProgressChanged(seekBar: RangeSeekBar, progressStart: Int, progressEnd: Int, fromUser: Boolean) {
+            offer(Range(progressStart, progressEnd, fromUser))
+        }
+
+        override fun onStartTrackingTouch(seekBar: RangeSeekBar) = Unit
+
+        override fun onStopTrackingTouch(seekBar: RangeSeekBar) = Unit
+    }
+
+    if (emitCurrent) {
+        offer(Range(progressStart, progressEnd, false))
+    }
+
+    addOnRangeSeekBarChangeListener(observer)
+    awaitClose { removeOnRangeSeekBarChangeListener(observer) }
+}.conflate()
+
+/**
+ * Cold flow of the drag start/stop events. Events are not conflated.
+ * Must be collected on the main thread.
+ */
+@ExperimentalCoroutinesApi
+fun RangeSeekBar.trackingFlow(): Flow<TrackingEvent> = callbackFlow {
+    val observer = object : RangeSeekBar.OnRangeSeekBarChangeListener {
+        override fun onProgressChanged(seekBar: RangeSeekBar, progressStart: Int, progressEnd: Int, fromUser: Boolean) =
+            Unit
+
+        override fun onStartTrackingTouch(seekBar: RangeSeekBar) {
+            offer(TrackingEvent.Started)
+        }
+
+        override fun onStopTrackingTouch(seekBar: RangeSeekBar) {
+            offer(TrackingEvent.Stopped)
+        }
+    }
+
+    addOnRangeSeekBarChangeListener(observer)
+    awaitClose { removeOnRangeSeekBarChangeListener(observer) }
+}
+
+/**
+ * [StateFlow] holding the current range, kept up to date while [scope] is active.<br />
+ * Unlike [rangeFlow], the seek bar is observed for the whole life of [scope], even while the state flow has
+ * no collectors, so every range change allocates a [Range]. Prefer [rangeFlow] when the range is only needed
+ * while it is collected.<br />
+ * A value is emitted when it differs from the current one, [Range.fromUser] included: the same start and end
+ * set programmatically after a drag are emitted again.
+ *
+ * @param scope scope running on the main thread, i.e. a lifecycle scope
+ */
+@ExperimentalCoroutinesApi
+fun RangeSeekBar.rangeStateFlow(scope: CoroutineScope): StateFlow<Range> {
+    val state = MutableStateFlow(Range(progressStart, progressEnd, false))
+    scope.launch {
+        rangeFlow(emitCurrent = false).collect { state.value = it }
+    }
+    return state
+}
@@ -0,0 +1,275 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Opt-in performance counters of one or more seek bars, see {@link RangeProgressBar#setMetrics(RangeSeekBarMetrics)}.<br />
+ * Records the draw duration, the listener callback time, the latency between an input event
+ * ({@code MotionEvent.getEventTime()}) and the next draw, the number of progress updates delivered or
+ * coalesced and the number of invalidations.<br />
+ * Durations go into fixed-bucket histograms with power of two microsecond buckets. All the counters
+ * are lock-free, so the same instance can be shared by many views and read from any thread with
+ * {@link #snapshot()}. A snapshot is not atomic across counters, which is fine for telemetry.
+ */
+@SuppressWarnings ({"unused", "WeakerAccess"})
+public final class RangeSeekBarMetrics {
+
+    private final Histogram mDrawTime = new Histogram();
+    private final Histogram mListenerTime = new Histogram();
+    private final Histogram mInputLatency = new Histogram();
+    private final AtomicLong mUpdatesDelivered = new AtomicLong();
+    private final AtomicLong mUpdatesCoalesced = new AtomicLong();
+    private final AtomicLong mInvalidations = new AtomicLong();
+    private volatile long mStartTime = System.nanoTime();
+
+    void recordDraw(long durationNanos) {
+        mDrawTime.record(durationNanos);
+    }
+
+    void recordListener(long durationNanos) {
+        mListenerTime.record(durationNanos);
+    }
+
+    void recordInputLatency(long latencyNanos) {
+        mInputLatency.record(latencyNanos);
+    }
+
+    void recordUpdateDelivered() {
+        mUpdatesDelivered.incrementAndGet();
+    }
+
+    void recordUpdatesCoalesced(int count) {
+        if (count > 0) {
+            mUpdatesCoalesced.addAndGet(count);
+        }
+    }
+
+    void recordInvalidation() {
+        mInvalidations.incrementAndGet();
+    }
+
+    /**
+     * Clear all the counters
+     */
+    public void reset() {
+        mDrawTime.reset();
+        mListenerTime.reset();
+        mInputLatency.reset();
+        mUpdatesDelivered.set(0);
+        mUpdatesCoalesced.set(0);
+        mInvalidations.set(0);
+        mStartTime = System.nanoTime();
+    }
+
+    @NonNull
+    public Snapshot snapshot() {
+        return new Snapshot(
+            mDrawTime.snapshot(),
+            mListenerTime.snapshot(),
+            mInputLatency.snapshot(),
+            mUpdatesDelivered.get(),
+            mUpdatesCoalesced.get(),
+            mInvalidations.get(),
+            System.nanoTime() - mStartTime
+        );
+    }
+
+    /**
+     * Histogram with fixed power of two buckets: bucket 0 holds 0us, bucket i holds the values
+     * in [2^(i-1), 2^i) us, the last bucket holds everything above.
+     */
+    static final class Histogram {
+        static final int BUCKET_COUNT = 32;
+
+        private final AtomicLongArray mCounts = new AtomicLongArray(BUCKET_COUNT);
+
+        void record(long nanos) {
+            mCounts.incrementAndGet(bucketOf(nanos / 1000));
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                mCounts.set(i, 0);
+            }
+        }
+
+        long[] snapshot() {
+            final long[] counts = new long[BUCKET_COUNT];
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                counts[i] = mCounts.get(i);
+            }
+            return counts;
+        }
+
+        static int bucketOf(long micros) {
+            if (micros <= 0) {
+                return 0;
+            }
+            return Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(micros));
+        }
+
+        /**
+         * @return the exclusive upper bound of a bucket, in microseconds
+         */
+        static long upperBound(int bucket) {
+            return bucket == 0 ? 1 : 1L << bucket;
+        }
+    }
+
+    /**
+     * Immutable copy of the counters. Percentiles are reported as the upper bound of the
+     * bucket containing them, so they are conservative within a factor of two.
+     */
+    public static final class Snapshot {
+        private final long[] mDrawTime;
+        private final long[] mListenerTime;
+        private final long[] mInputLatency;
+        private final long mUpdatesDelivered;
+        private final long mUpdatesCoalesced;
+        private final long mInvalidations;
+        private final long mElapsedNanos;
+
+        Snapshot(
+            long[] drawTime, long[] listenerTime, long[] inputLatency,
+            long updatesDelivered, long updatesCoalesced, long invalidations, long elapsedNanos) {
+            mDrawTime = drawTime;
+            mListenerTime = listenerTime;
+            mInputLatency = inputLatency;
+            mUpdatesDelivered = updatesDelivered;
+            mUpdatesCoalesced = updatesCoalesced;
+            mInvalidations = invalidations;
+            mElapsedNanos = elapsedNanos;
+        }
+
+        public long getDrawCount() {
+            return count(mDrawTime);
+        }
+
+        /**
+         * @param percentile between 0 and 1, i.e. 0.99
+         * @return draw duration in microseconds
+         */
+        public long getDrawTimeMicros(float percentile) {
+            return percentile(mDrawTime, percentile);
+        }
+
+        public long getListenerCount() {
+            return count(mListenerTime);
+        }
+
+        /**
+         * @param percentile between 0 and 1, i.e. 0.99
+         * @return listener callback time in microseconds
+         */
+        public long getListenerTimeMicros(float percentile) {
+            return percentile(mListenerTime, percentile);
+        }
+
+        public long getInputLatencyCount() {
+            return count(mInputLatency);
+        }
+
+        /**
+         * @param percentile between 0 and 1, i.e. 0.99
+         * @return time between an input event and the next draw, in microseconds
+         */
+        public long getInputLatencyMicros(float percentile) {
+            return percentile(mInputLatency, percentile);
+        }
+
+        /**
+         * @return number of progress updates applied to the view
+         */
+        public long getUpdatesDelivered() {
+            return mUpdatesDelivered;
+        }
+
+        /**
+         * @return number of progress updates (including touch samples) replaced by a newer one before being applied
+         */
+        public long getUpdatesCoalesced() {
+            return mUpdatesCoalesced;
+        }
+
+        public long getInvalidations() {
+            return mInvalidations;
+        }
+
+        public float getInvalidationsPerSecond() {
+            return mElapsedNanos > 0 ? mInvalidations * 1e9f / mElapsedNanos : 0;
+        }
+
+        /**
+         * @return time since the metrics were created or reset
+         */
+        public long getElapsedMillis() {
+            return mElapsedNanos / 1_000_000;
+        }
+
+        /**
+         * @return copy of the draw time bucket counts, see {@link #getBucketUpperBoundMicros(int)}
+         */
+        public long[] getDrawTimeBuckets() {
+            return mDrawTime.clone();
+        }
+
+        public long[] getListenerTimeBuckets() {
+            return mListenerTime.clone();
+        }
+
+        public long[] getInputLatencyBuckets() {
+            return mInputLatency.clone();
+        }
+
+        public static int getBucketCount() {
+            return Histogram.BUCKET_COUNT;
+        }
+
+        /**
+         * @return exclusive upper bound of the bucket, in microseconds
+         */
+        public static long getBucketUpperBoundMicros(int bucket) {
+            return Histogram.upperBound(bucket);
+        }
+
+        static long count(long[] counts) {
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            return total;
+        }
+
+        static long percentile(long[] counts, float percentile) {
+            final long total = count(counts);
+            if (total == 0) {
+                return 0;
+            }
+
+            final long rank = Math.max(1, (long) Math.ceil(MathUtils.constrain(percentile, 0, 1) * total));
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                if (cumulative >= rank) {
+                    return Histogram.upperBound(i);
+                }
+            }
+            return Histogram.upperBound(counts.length - 1);
+        }
+
+        @Override
+        public String toString() {
+            return "RangeSeekBarMetrics{" +
+                "draw p50=" + getDrawTimeMicros(0.5f) + "us p99=" + getDrawTimeMicros(0.99f) + "us" +
+                ", listener p50=" + getListenerTimeMicros(0.5f) + "us p99=" + getListenerTimeMicros(0.99f) + "us" +
+                ", input p50=" + getInputLatencyMicros(0.5f) + "us p99=" + getInputLatencyMicros(0.99f) + "us" +
+                ", delivered=" + mUpdatesDelivered +
+                ", coalesced=" + mUpdatesCoalesced +
+                ", invalidations/s=" + getInvalidationsPerSecond() +
+                '}';
+        }
+    }
+}
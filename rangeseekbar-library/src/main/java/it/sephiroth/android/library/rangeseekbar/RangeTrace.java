@@ -0,0 +1,88 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import android.os.Trace;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Named trace sections around the measure, draw, touch, refresh and listener paths of the widgets,
+ * visible in systrace/perfetto captures once enabled with {@link #setEnabled(boolean)}.<br />
+ * When tracing is off each section costs a single volatile read. {@link #begin(String)} returns the
+ * tracer which opened the section and {@link #end(Tracer)} closes it on the same tracer, so sections
+ * stay paired even if tracing is toggled in the middle of one.
+ */
+@SuppressWarnings ({"unused", "WeakerAccess"})
+public final class RangeTrace {
+
+    public interface Tracer {
+        void beginSection(@NonNull String name);
+
+        void endSection();
+    }
+
+    static final String PROGRESS_ON_DRAW = "RangeProgressBar.onDraw";
+    static final String PROGRESS_ON_MEASURE = "RangeProgressBar.onMeasure";
+    static final String DO_REFRESH_PROGRESS = "RangeProgressBar.doRefreshProgress";
+    static final String SEEKBAR_ON_DRAW = "RangeSeekBar.onDraw";
+    static final String SEEKBAR_ON_MEASURE = "RangeSeekBar.onMeasure";
+    static final String TRACK_TOUCH_EVENT = "RangeSeekBar.trackTouchEvent";
+    static final String LISTENER = "RangeSeekBar.listener";
+
+    private static final Tracer SYSTEM_TRACER = new Tracer() {
+        @Override
+        public void beginSection(@NonNull String name) {
+            Trace.beginSection(name);
+        }
+
+        @Override
+        public void endSection() {
+            Trace.endSection();
+        }
+    };
+
+    /** Current tracer, null when tracing is disabled */
+    private static volatile Tracer sTracer;
+
+    private RangeTrace() { }
+
+    /**
+     * Enable or disable the trace sections, disabled by default
+     */
+    public static void setEnabled(boolean enabled) {
+        sTracer = enabled ? SYSTEM_TRACER : null;
+    }
+
+    public static boolean isEnabled() {
+        return sTracer != null;
+    }
+
+    /**
+     * Send the sections to a custom tracer instead of {@link android.os.Trace}
+     *
+     * @param tracer the tracer, or null to disable tracing
+     */
+    public static void setTracer(@Nullable Tracer tracer) {
+        sTracer = tracer;
+    }
+
+    /**
+     * Open a section
+     *
+     * @return the tracer to pass to {@link #end(Tracer)}, null if tracing is disabled
+     */
+    @Nullable
+    static Tracer begin(@NonNull String name) {
+        final Tracer tracer = sTracer;
+        if (tracer != null) {
+            tracer.beginSection(name);
+        }
+        return tracer;
+    }
+
+    static void end(@Nullable Tracer tracer) {
+        if (tracer != null) {
+            tracer.endSection();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single slot, latest-wins mailbox used to hand progress updates from any thread to the ui thread.<br />
+ * Producers never block and never allocate: a new update simply replaces the pending one. The
+ * consumer drains the slot once per frame, so the cost is proportional to the number of frames and
+ * not to the number of updates.<br />
+ * Merge rules for the updates folded together: the range and the animate flag of the newest
+ * update win, while fromUser is true if at least one of the folded updates came from the user.
+ * <p>
+ * start and end are never negative, so their sign bits are used to store the two flags and the
+ * whole update fits into a single atomic long.
+ */
+final class RefreshMailbox {
+    /** Value returned by {@link #poll()} when nothing is pending (start greater than end, never a valid range). */
+    static final long EMPTY = RangeModel.pack(1, 0);
+
+    private static final long FLAG_FROM_USER = 1L << 63;
+    private static final long FLAG_ANIMATE = 1L << 31;
+    private static final long FLAGS = FLAG_FROM_USER | FLAG_ANIMATE;
+
+    private final AtomicLong mPending = new AtomicLong(EMPTY);
+    private final AtomicBoolean mScheduled = new AtomicBoolean();
+
+    /**
+     * Store a new update, replacing the pending one if any.
+     *
+     * @return true if the caller must schedule a drain of the mailbox
+     */
+    boolean offer(int startValue, int endValue, boolean fromUser, boolean animate) {
+        long value = RangeModel.pack(startValue, endValue);
+        if (fromUser) {
+            value |= FLAG_FROM_USER;
+        }
+        if (animate) {
+            value |= FLAG_ANIMATE;
+        }
+
+        long previous;
+        long next;
+        do {
+            previous = mPending.get();
+            next = previous != EMPTY ? value | (previous & FLAG_FROM_USER) : value;
+        } while (!mPending.compareAndSet(previous, next));
+
+        return mScheduled.compareAndSet(false, true);
+    }
+
+    /**
+     * Take the pending update, if any. Must be called by the consumer only.
+     *
+     * @return the pending update or {@link #EMPTY}
+     */
+    long poll() {
+        // reset the flag first, so that an update offered from now on schedules another drain
+        mScheduled.set(false);
+        return mPending.getAndSet(EMPTY);
+    }
+
+    /**
+     * Take the pending update, if any, keeping the drain scheduled. Used by consumers which
+     * drain in a loop and must not run concurrently with another drain, see {@link #release()}.
+     *
+     * @return the pending update or {@link #EMPTY}
+     */
+    long take() {
+        return mPending.getAndSet(EMPTY);
+    }
+
+    /**
+     * End a drain loop started with {@link #take()}.
+     *
+     * @return true if an update arrived in the meantime and the caller must keep draining
+     */
+    boolean release() {
+        mScheduled.set(false);
+        return hasPending() && mScheduled.compareAndSet(false, true);
+    }
+
+    /**
+     * The scheduled drain has been cancelled (i.e. the view was detached)
+     */
+    void unschedule() {
+        mScheduled.set(false);
+    }
+
+    boolean hasPending() {
+        return mPending.get() != EMPTY;
+    }
+
+    static int start(long value) {
+        return RangeModel.start(value & ~FLAGS);
+    }
+
+    static int end(long value) {
+        return RangeModel.end(value & ~FLAGS);
+    }
+
+    static boolean isFromUser(long value) {
+        return (value & FLAG_FROM_USER) != 0;
+    }
+
+    static boolean isAnimate(long value) {
+        return (value & FLAG_ANIMATE) != 0;
+    }
+}
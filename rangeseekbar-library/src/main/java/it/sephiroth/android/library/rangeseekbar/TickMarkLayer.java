@@ -0,0 +1,116 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import android.graphics.Canvas;
+import android.graphics.Picture;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+
+/**
+ * Cached layer with all the tick marks of a {@link RangeSeekBar}.<br />
+ * Tick marks are recorded once into a {@link Picture} and replayed on every frame. The picture is
+ * recorded again only when the track width, max, step size or the tick mark drawable (tint, state) change.<br />
+ * When the ticks would be closer than the minimum spacing only every n-th tick is recorded, so the
+ * number of draw operations depends on the track width and not on the max value.
+ */
+final class TickMarkLayer {
+    private final Picture mPicture = new Picture();
+
+    private Drawable mTickMark;
+    private int mWidth = -1;
+    private int mMax = -1;
+    private int mStepSize = -1;
+    private int mMinSpacing;
+    private boolean mDirty = true;
+
+    /**
+     * Force the layer to be recorded again on the next draw. To be called
+     * when the tick mark tint or state changes.
+     */
+    void invalidate() {
+        mDirty = true;
+    }
+
+    void setMinSpacing(int value) {
+        if (value != mMinSpacing) {
+            mMinSpacing = value;
+            mDirty = true;
+        }
+    }
+
+    int getMinSpacing() {
+        return mMinSpacing;
+    }
+
+    /**
+     * Draw the tick marks. The canvas must be translated so that (0, 0) is the
+     * center of the first tick mark.
+     *
+     * @param width    available track width
+     * @param max      max progress value
+     * @param stepSize progress step size
+     */
+    void draw(Canvas canvas, Drawable tickMark, int width, int max, int stepSize) {
+        if (mDirty || tickMark != mTickMark || width != mWidth || max != mMax || stepSize != mStepSize) {
+            mTickMark = tickMark;
+            mWidth = width;
+            mMax = max;
+            mStepSize = stepSize;
+            mDirty = false;
+            record();
+        }
+
+        final Rect bounds = tickMark.getBounds();
+        final int saveCount = canvas.save();
+        canvas.translate(bounds.left, bounds.top);
+        canvas.drawPicture(mPicture);
+        canvas.restoreToCount(saveCount);
+    }
+
+    /**
+     * @return the number of ticks between two recorded tick marks
+     */
+    static int getDecimation(float spacing, int minSpacing) {
+        if (spacing <= 0) {
+            return Integer.MAX_VALUE;
+        }
+        if (spacing >= minSpacing) {
+            return 1;
+        }
+        return (int) Math.ceil(minSpacing / spacing);
+    }
+
+    private void record() {
+        final Drawable tickMark = mTickMark;
+        final Rect bounds = tickMark.getBounds();
+        final float intervals = (float) mMax / Math.max(1, mStepSize);
+        final int count = (int) intervals;
+
+        final Canvas canvas = mPicture.beginRecording(mWidth + bounds.width(), bounds.height());
+
+        if (count > 0 && mWidth > 0) {
+            final float spacing = mWidth / intervals;
+            final int every = getDecimation(spacing, mMinSpacing);
+
+            // the recording origin is the top-left corner of the first tick mark
+            canvas.translate(-bounds.left, -bounds.top);
+
+            for (int i = 0; i <= count; i += every) {
+                drawTickMark(canvas, tickMark, i * spacing);
+
+                // always draw the last tick
+                if (i + every > count && i != count) {
+                    drawTickMark(canvas, tickMark, count * spacing);
+                }
+            }
+        }
+
+        mPicture.endRecording();
+    }
+
+    private static void drawTickMark(Canvas canvas, Drawable tickMark, float x) {
+        final int saveCount = canvas.save();
+        canvas.translate(x, 0);
+        tickMark.draw(canvas);
+        canvas.restoreToCount(saveCount);
+    }
+}
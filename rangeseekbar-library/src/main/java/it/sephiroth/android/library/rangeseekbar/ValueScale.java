@@ -0,0 +1,107 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Maps a progress value to a position (fraction) along the track.<br />
+ * Implementations must be monotonic: a greater value must never map to a smaller fraction,
+ * 0 must map to 0 and max to 1.<br />
+ * The scale is not evaluated on every frame: {@link RangeProgressBar} samples it once per layout
+ * into a lookup table, so even expensive functions (log, pow) are fine.
+ *
+ * @see RangeProgressBar#setValueScale(ValueScale)
+ */
+@SuppressWarnings ({"unused", "WeakerAccess"})
+public abstract class ValueScale {
+
+    /**
+     * @param value progress value, in [0, max]
+     * @param max   current max value, greater than 0
+     * @return the position of the value along the track, in [0, 1]
+     */
+    public abstract float toFraction(int value, int max);
+
+    /**
+     * @return the default linear scale
+     */
+    @NonNull
+    public static ValueScale linear() {
+        return Linear.INSTANCE;
+    }
+
+    /**
+     * @return a logarithmic scale, where log(1 + value) is proportional to the track position
+     */
+    @NonNull
+    public static ValueScale log() {
+        return Log.INSTANCE;
+    }
+
+    /**
+     * Piecewise linear scale. i.e. piecewise(new int[]{0, 100, 100000}, new float[]{0, 0.5f, 1})
+     * gives the 0-100 band half of the track.
+     *
+     * @param values    increasing values, the first must be 0
+     * @param fractions track position of each value, increasing and in [0, 1]
+     */
+    @NonNull
+    public static ValueScale piecewise(@NonNull int[] values, @NonNull float[] fractions) {
+        return new Piecewise(values, fractions);
+    }
+
+    private static final class Linear extends ValueScale {
+        static final Linear INSTANCE = new Linear();
+
+        @Override
+        public float toFraction(int value, int max) {
+            return (float) value / max;
+        }
+    }
+
+    private static final class Log extends ValueScale {
+        static final Log INSTANCE = new Log();
+
+        @Override
+        public float toFraction(int value, int max) {
+            return (float) (Math.log1p(value) / Math.log1p(max));
+        }
+    }
+
+    private static final class Piecewise extends ValueScale {
+        private final int[] mValues;
+        private final float[] mFractions;
+
+        Piecewise(int[] values, float[] fractions) {
+            if (values.length != fractions.length || values.length < 2) {
+                throw new IllegalArgumentException("values and fractions must have the same length (at least 2)");
+            }
+            for (int i = 1; i < values.length; i++) {
+                if (values[i] <= values[i - 1] || fractions[i] < fractions[i - 1]) {
+                    throw new IllegalArgumentException("values and fractions must be increasing");
+                }
+            }
+            mValues = values.clone();
+            mFractions = fractions.clone();
+        }
+
+        @Override
+        public float toFraction(int value, int max) {
+            final int[] values = mValues;
+            final int last = values.length - 1;
+
+            if (value <= values[0]) {
+                return mFractions[0];
+            }
+            if (value >= values[last]) {
+                return mFractions[last];
+            }
+
+            int i = 1;
+            while (values[i] < value) {
+                i++;
+            }
+            final float t = (float) (value - values[i - 1]) / (values[i] - values[i - 1]);
+            return mFractions[i - 1] + (mFractions[i] - mFractions[i - 1]) * t;
+        }
+    }
+}
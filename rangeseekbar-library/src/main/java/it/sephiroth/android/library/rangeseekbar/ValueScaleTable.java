@@ -0,0 +1,106 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+/**
+ * Lookup table of a {@link ValueScale} sampled once per track width.<br />
+ * For each pixel of the track the table holds the smallest value which maps to that pixel, so
+ * both directions (value to fraction and fraction to value) are a binary search or an array
+ * lookup followed by a linear interpolation inside the pixel. The scale itself is only evaluated
+ * when the table is built.
+ */
+final class ValueScaleTable {
+    private int[] mValues = new int[0];
+    private ValueScale mScale;
+    private int mMax = -1;
+    private int mWidth = -1;
+
+    boolean isValid(ValueScale scale, int max, int width) {
+        return scale == mScale && max == mMax && width == mWidth;
+    }
+
+    /**
+     * Sample the scale, the array is reused if big enough.
+     *
+     * @param max   max progress value, greater than 0
+     * @param width number of pixels of the track, greater than 0
+     */
+    void build(ValueScale scale, int max, int width) {
+        mScale = scale;
+        mMax = max;
+        mWidth = width;
+
+        if (mValues.length < width + 1) {
+            mValues = new int[width + 1];
+        }
+
+        final int[] values = mValues;
+        int low = 0;
+
+        for (int p = 0; p <= width; p++) {
+            final float target = (float) p / width;
+
+            // smallest value whose fraction is >= target. targets are increasing,
+            // so the search starts from the previous result
+            int high = max;
+            int lo = low;
+            while (lo < high) {
+                final int mid = (lo + high) >>> 1;
+                if (scale.toFraction(mid, max) < target) {
+                    lo = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            values[p] = lo;
+            low = lo;
+        }
+
+        values[0] = 0;
+        values[width] = max;
+    }
+
+    /**
+     * @return the position of the value along the track, in [0, 1]
+     */
+    float toFraction(int value) {
+        final int[] values = mValues;
+        final int width = mWidth;
+
+        if (value <= 0) {
+            return 0;
+        }
+        if (value >= mMax) {
+            return 1;
+        }
+
+        // last pixel whose value is <= value. Several pixels can share the same value
+        // when the scale stretches that part of the range
+        int low = 0;
+        int high = width;
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            if (values[mid] <= value) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        final int from = values[low];
+        final int to = values[low + 1];
+        final float t = to > from ? (float) (value - from) / (to - from) : 0f;
+        return (low + t) / width;
+    }
+
+    /**
+     * @param fraction position along the track, in [0, 1]
+     * @return the (not rounded) value at the given position
+     */
+    float toValue(float fraction) {
+        final int width = mWidth;
+        final float position = MathUtils.constrain(fraction, 0f, 1f) * width;
+        final int index = Math.min((int) position, width - 1);
+        final float t = position - index;
+        final int from = mValues[index];
+        return from + (mValues[index + 1] - from) * t;
+    }
+}
@@ -0,0 +1,93 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ExecutorDispatcherTest {
+
+    @Test
+    public void conflatesWhileQueued() {
+        final List<Runnable> queue = new ArrayList<>();
+        final List<String> calls = new ArrayList<>();
+        final ExecutorDispatcher dispatcher = new ExecutorDispatcher(
+            queue::add, (start, end, fromUser) -> calls.add(start + "," + end + (fromUser ? " user" : "")));
+
+        dispatcher.offer(1, 10, true);
+        dispatcher.offer(2, 10, false);
+        dispatcher.offer(3, 10, false);
+
+        assertEquals(1, queue.size());
+        queue.remove(0).run();
+
+        assertEquals(1, calls.size());
+        assertEquals("3,10 user", calls.get(0));
+
+        dispatcher.offer(4, 10, false);
+        assertEquals(1, queue.size());
+        queue.remove(0).run();
+        assertEquals("4,10", calls.get(1));
+    }
+
+    @Test
+    public void cancelDropsPending() {
+        final List<Runnable> queue = new ArrayList<>();
+        final AtomicInteger calls = new AtomicInteger();
+        final ExecutorDispatcher dispatcher = new ExecutorDispatcher(
+            queue::add, (start, end, fromUser) -> calls.incrementAndGet());
+
+        dispatcher.offer(1, 10, true);
+        dispatcher.cancel();
+        queue.remove(0).run();
+        dispatcher.offer(2, 10, true);
+
+        assertEquals(0, calls.get());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void neverOverlapsOnThreadPool() throws Exception {
+        final ExecutorService pool = Executors.newFixedThreadPool(4);
+        final AtomicBoolean running = new AtomicBoolean();
+        final AtomicBoolean overlapped = new AtomicBoolean();
+        final AtomicInteger last = new AtomicInteger(-1);
+        final AtomicBoolean outOfOrder = new AtomicBoolean();
+        final CountDownLatch done = new CountDownLatch(1);
+        final int count = 20_000;
+
+        final ExecutorDispatcher dispatcher = new ExecutorDispatcher(pool, (start, end, fromUser) -> {
+            if (!running.compareAndSet(false, true)) {
+                overlapped.set(true);
+            }
+            if (start <= last.getAndSet(start)) {
+                outOfOrder.set(true);
+            }
+            running.set(false);
+            if (start == count - 1) {
+                done.countDown();
+            }
+        });
+
+        for (int i = 0; i < count; i++) {
+            dispatcher.offer(i, count, true);
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        pool.shutdown();
+
+        assertFalse(overlapped.get());
+        assertFalse(outOfOrder.get());
+        assertEquals(count - 1, last.get());
+    }
+}
@@ -0,0 +1,71 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ListenerListTest {
+
+    @Test
+    public void addRemove() {
+        final ListenerList<Runnable> list = new ListenerList<>(new Runnable[0]);
+        final Runnable a = () -> { };
+        final Runnable b = () -> { };
+        final Runnable c = () -> { };
+
+        assertTrue(list.add(a));
+        assertTrue(list.add(b));
+        assertTrue(list.add(c));
+        assertFalse(list.add(b));
+        assertEquals(3, list.get().length);
+
+        assertTrue(list.remove(b));
+        assertFalse(list.remove(b));
+        assertEquals(2, list.get().length);
+        assertSame(a, list.get()[0]);
+        assertSame(c, list.get()[1]);
+
+        assertTrue(list.remove(a));
+        assertTrue(list.remove(c));
+        assertEquals(0, list.get().length);
+    }
+
+    @Test
+    public void snapshotIsStableDuringDispatch() {
+        final ListenerList<Runnable> list = new ListenerList<>(new Runnable[0]);
+        final List<String> calls = new ArrayList<>();
+        final Runnable late = () -> calls.add("late");
+        final Runnable[] second = new Runnable[1];
+
+        list.add(() -> {
+            calls.add("first");
+            list.remove(second[0]);
+            list.add(late);
+        });
+        second[0] = () -> calls.add("second");
+        list.add(second[0]);
+
+        final Runnable[] snapshot = list.get();
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i].run();
+        }
+
+        // the removed listener still gets the current event, the added one doesn't
+        assertEquals("[first, second]", calls.toString());
+        assertEquals(2, list.get().length);
+        assertSame(late, list.get()[1]);
+    }
+
+    @Test
+    public void snapshotReusedBetweenEvents() {
+        final ListenerList<Runnable> list = new ListenerList<>(new Runnable[0]);
+        list.add(() -> { });
+        assertSame(list.get(), list.get());
+    }
+}
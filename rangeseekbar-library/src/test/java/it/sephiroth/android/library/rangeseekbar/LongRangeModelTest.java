@@ -0,0 +1,121 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LongRangeModelTest {
+    /** 2015-01-01T00:00:00Z */
+    private static final long FROM = 1420070400000L;
+    /** 2025-01-01T00:00:00Z */
+    private static final long TO = 1735689600000L;
+    private static final long HOUR = 3600_000L;
+
+    @Test
+    public void epochMillisAreSnappedExactly() {
+        final LongRangeModel model = new LongRangeModel();
+        model.setRange(FROM, TO);
+        model.setStepSize(HOUR);
+
+        assertTrue(model.apply(FROM + 10 * HOUR + 1, TO - 3 * HOUR - HOUR / 3));
+        assertEquals(FROM + 10 * HOUR, model.getStart());
+        assertEquals(TO - 3 * HOUR, model.getEnd());
+
+        assertFalse(model.apply(FROM + 10 * HOUR - 1, TO - 3 * HOUR + 1));
+    }
+
+    @Test
+    public void snapAboveFloatAndDoublePrecision() {
+        final long min = Long.MAX_VALUE - (1L << 60);
+        final LongRangeModel model = new LongRangeModel();
+        model.setRange(min, Long.MAX_VALUE);
+        model.setStepSize(3);
+
+        model.apply(min + 7, Long.MAX_VALUE);
+        assertEquals(min + 6, model.getStart());
+        // the last multiple of the step which is not greater than max
+        assertEquals(0, (model.getEnd() - min) % 3);
+        assertTrue(Long.MAX_VALUE - model.getEnd() < 3);
+    }
+
+    @Test
+    public void minDistanceIsKept() {
+        final LongRangeModel model = new LongRangeModel();
+        model.setRange(FROM, TO);
+        model.setMinDistance(24 * HOUR);
+
+        model.apply(TO, TO);
+        assertEquals(TO - 24 * HOUR, model.getStart());
+        assertEquals(TO, model.getEnd());
+
+        model.apply(FROM, FROM);
+        assertEquals(FROM, model.getStart());
+        assertEquals(FROM + 24 * HOUR, model.getEnd());
+    }
+
+    @Test
+    public void maxOffTheGrid() {
+        final LongRangeModel model = new LongRangeModel();
+        model.setRange(0, 95);
+        model.setStepSize(10);
+        model.setMinDistance(10);
+
+        model.apply(90, 95);
+        assertEquals(80, model.getStart());
+        assertEquals(90, model.getEnd());
+
+        model.apply(0, 95);
+        assertEquals(0, model.getStart());
+        assertEquals(90, model.getEnd());
+    }
+
+    @Test
+    public void stepLargerThanTheSpan() {
+        final LongRangeModel model = new LongRangeModel();
+        model.setRange(0, 95);
+        model.setStepSize(100);
+        model.setMinDistance(50);
+
+        // the only grid point is min
+        assertEquals(0, model.getMinDistance());
+        assertEquals(0, model.getStart());
+        assertEquals(0, model.getEnd());
+
+        // a one day step on a range shorter than a day
+        model.setRange(FROM, FROM + 12 * HOUR);
+        model.setStepSize(1);
+        model.setMinDistance(HOUR);
+        model.setStepSize(24 * HOUR);
+        assertEquals(FROM, model.getStart());
+        assertEquals(FROM, model.getEnd());
+    }
+
+    @Test
+    public void tiesAreRoundedDownAsInRangeModel() {
+        assertEquals(RangeModel.snap(15, 10), LongRangeModel.snap(15, 0, 100, 10));
+        assertEquals(RangeModel.snap(16, 10), LongRangeModel.snap(16, 0, 100, 10));
+        assertEquals(10, LongRangeModel.snap(15, 0, 100, 10));
+    }
+
+    @Test
+    public void valuesAreClampedToTheRange() {
+        final LongRangeModel model = new LongRangeModel();
+        model.setRange(FROM, TO);
+        model.apply(Long.MIN_VALUE, Long.MAX_VALUE);
+
+        final long[] range = new long[2];
+        model.getRange(range);
+        assertEquals(FROM, range[0]);
+        assertEquals(TO, range[1]);
+
+        model.setRange(FROM, FROM + HOUR);
+        assertEquals(FROM + HOUR, model.getEnd());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void overflowingRangeIsRejected() {
+        new LongRangeModel().setRange(Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,70 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MultiRangeModelTest {
+
+    @Test
+    public void valuesAreSpreadEvenly() {
+        final MultiRangeModel model = new MultiRangeModel(5);
+        assertArrayEquals(new int[]{0, 25, 50, 75, 100}, model.get(new int[5]));
+    }
+
+    @Test
+    public void valueIsConstrainedByNeighbours() {
+        final MultiRangeModel model = new MultiRangeModel(3);
+        model.setMinDistance(10);
+
+        assertTrue(model.set(1, 95));
+        assertEquals(90, model.get(1));
+
+        assertTrue(model.set(1, -5));
+        assertEquals(10, model.get(1));
+
+        assertFalse(model.set(1, 0));
+    }
+
+    @Test
+    public void valuesAreSortedAndSnapped() {
+        final MultiRangeModel model = new MultiRangeModel(4);
+        model.setStepSize(10);
+        model.set(new int[]{72, 8, 150, 31});
+        assertArrayEquals(new int[]{10, 30, 70, 100}, model.get(new int[4]));
+    }
+
+    @Test
+    public void setMaxClampsValues() {
+        final MultiRangeModel model = new MultiRangeModel(3);
+        model.setMinDistance(5);
+        model.setMax(20);
+        assertArrayEquals(new int[]{0, 15, 20}, model.get(new int[3]));
+    }
+
+    @Test
+    public void nearestIndex() {
+        final MultiRangeModel model = new MultiRangeModel(4);
+        model.set(new int[]{10, 40, 60, 90});
+
+        assertEquals(0, model.nearestIndex(0));
+        assertEquals(0, model.nearestIndex(24));
+        assertEquals(1, model.nearestIndex(26));
+        assertEquals(2, model.nearestIndex(55));
+        assertEquals(3, model.nearestIndex(100));
+    }
+
+    @Test
+    public void nearestIndexOnStackedValues() {
+        final MultiRangeModel model = new MultiRangeModel(4);
+        model.set(new int[]{10, 50, 50, 50});
+
+        // the thumb which can move towards the touch is picked
+        assertEquals(1, model.nearestIndex(45));
+        assertEquals(3, model.nearestIndex(51));
+        assertEquals(3, model.nearestIndex(50));
+    }
+}
@@ -0,0 +1,82 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import android.content.Context;
+import android.os.Parcelable;
+import android.view.ContextThemeWrapper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+@RunWith (AndroidJUnit4.class)
+@Config (sdk = 28)
+public class MultiRangeSeekBarTest {
+    private Context mContext;
+    private MultiRangeSeekBar mSeekBar;
+
+    @Before
+    public void setUp() {
+        mContext = new ContextThemeWrapper(ApplicationProvider.getApplicationContext(), R.style.Theme_AppCompat_Light);
+        mSeekBar = new MultiRangeSeekBar(mContext);
+        mSeekBar.setMax(100);
+    }
+
+    @Test
+    public void twoValuesSetBothThumbs() {
+        mSeekBar.setProgress(10, 80);
+        assertEquals(10, mSeekBar.getProgress(0));
+        assertEquals(80, mSeekBar.getProgress(1));
+
+        mSeekBar.setThumbProgress(1, 60);
+        assertEquals(60, mSeekBar.getProgress(1));
+    }
+
+    @Test
+    public void onlyChangedThumbsAreNotified() {
+        mSeekBar.setProgress(10, 80);
+
+        final List<String> calls = new ArrayList<>();
+        mSeekBar.setOnMultiRangeSeekBarChangeListener(new MultiRangeSeekBar.OnMultiRangeSeekBarChangeListener() {
+            @Override
+            public void onProgressChanged(MultiRangeSeekBar seekBar, int index, int value, boolean fromUser) {
+                calls.add(index + "=" + value);
+            }
+
+            @Override
+            public void onStartTrackingTouch(MultiRangeSeekBar seekBar, int index) { }
+
+            @Override
+            public void onStopTrackingTouch(MultiRangeSeekBar seekBar, int index) { }
+        });
+
+        mSeekBar.setProgress(10, 50);
+        assertEquals("[1=50]", calls.toString());
+
+        mSeekBar.setProgress(10, 50);
+        assertEquals(1, calls.size());
+    }
+
+    @Test
+    public void saveAndRestore() {
+        mSeekBar.setThumbCount(4);
+        mSeekBar.setProgress(5, 20, 40, 90);
+        final Parcelable state = mSeekBar.onSaveInstanceState();
+
+        final MultiRangeSeekBar restored = new MultiRangeSeekBar(mContext);
+        restored.setMax(100);
+        restored.onRestoreInstanceState(state);
+
+        assertEquals(4, restored.getThumbCount());
+        assertArrayEquals(new int[]{5, 20, 40, 90}, restored.getProgress(new int[4]));
+    }
+}
@@ -0,0 +1,133 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import androidx.annotation.NonNull;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ProgressAnimationDriverTest {
+    private static final long FRAME = 16_000_000;
+
+    private int mFramesScheduled;
+    private ProgressAnimationDriver mDriver;
+
+    @Before
+    public void setUp() {
+        mFramesScheduled = 0;
+        mDriver = new ProgressAnimationDriver(new ProgressAnimationDriver.FrameScheduler() {
+            @Override
+            public void scheduleFrame(@NonNull ProgressAnimationDriver driver) {
+                mFramesScheduled++;
+            }
+        });
+    }
+
+    @Test
+    public void singleFrameCallbackForManyAnimations() {
+        final List<FakeCallback> callbacks = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            final FakeCallback callback = new FakeCallback();
+            callbacks.add(callback);
+            mDriver.start(new ProgressAnimator(mDriver, callback), 0, 0, 1, 1, 160);
+        }
+
+        assertEquals(1, mFramesScheduled);
+        assertEquals(100, mDriver.getRunningCount());
+
+        long time = 1_000_000_000;
+        mDriver.doFrame(time);
+        mDriver.doFrame(time += FRAME * 5);
+        assertEquals(0.5f, callbacks.get(42).start, 0.001f);
+
+        mDriver.doFrame(time + FRAME * 5);
+        assertEquals(0, mDriver.getRunningCount());
+        for (FakeCallback callback : callbacks) {
+            assertEquals(1f, callback.end, 0f);
+            assertEquals(1, callback.ended);
+        }
+        assertEquals(3, mFramesScheduled);
+    }
+
+    @Test
+    public void restartAndCancel() {
+        final FakeCallback first = new FakeCallback();
+        final FakeCallback second = new FakeCallback();
+        final FakeCallback third = new FakeCallback();
+        final ProgressAnimator a = new ProgressAnimator(mDriver, first);
+        final ProgressAnimator b = new ProgressAnimator(mDriver, second);
+        final ProgressAnimator c = new ProgressAnimator(mDriver, third);
+
+        mDriver.start(a, 0, 0, 1, 1, 160);
+        mDriver.start(b, 0, 0, 1, 1, 160);
+        mDriver.start(c, 0, 0, 1, 1, 160);
+        mDriver.doFrame(0);
+
+        b.cancel();
+        assertFalse(b.isRunning());
+        assertTrue(c.isRunning());
+        assertEquals(2, mDriver.getRunningCount());
+
+        // restart from the current position
+        mDriver.start(a, 0.5f, 0.5f, 0, 0, 160);
+        assertTrue(mDriver.isAnimatingTo(a, 0, 0));
+        assertEquals(2, mDriver.getRunningCount());
+
+        mDriver.doFrame(FRAME * 10);
+        assertEquals(0.5f, first.start, 0f);
+        assertEquals(1f, third.start, 0f);
+        assertEquals(1, third.ended);
+
+        mDriver.doFrame(FRAME * 20);
+        assertEquals(0f, first.start, 0f);
+        assertEquals(1, first.ended);
+        assertEquals(0, second.ended);
+    }
+
+    @Test
+    public void cancelFromCallback() {
+        final FakeCallback other = new FakeCallback();
+        final ProgressAnimator b = new ProgressAnimator(mDriver, other);
+        final ProgressAnimator a = new ProgressAnimator(mDriver, new FakeCallback() {
+            @Override
+            public void onProgressAnimationUpdate(float start, float end) {
+                super.onProgressAnimationUpdate(start, end);
+                b.cancel();
+            }
+        });
+
+        mDriver.start(a, 0, 0, 1, 1, 160);
+        mDriver.start(b, 0, 0, 1, 1, 160);
+        mDriver.doFrame(0);
+
+        assertEquals(1, mDriver.getRunningCount());
+        assertTrue(a.isRunning());
+        assertFalse(b.isRunning());
+        assertEquals(0, other.updates);
+    }
+
+    static class FakeCallback implements ProgressAnimator.Callback {
+        float start;
+        float end;
+        int updates;
+        int ended;
+
+        @Override
+        public void onProgressAnimationUpdate(float start, float end) {
+            this.start = start;
+            this.end = end;
+            updates++;
+        }
+
+        @Override
+        public void onProgressAnimationEnd() {
+            ended++;
+        }
+    }
+}
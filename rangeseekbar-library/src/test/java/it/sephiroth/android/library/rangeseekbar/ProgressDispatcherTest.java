@@ -0,0 +1,136 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ProgressDispatcherTest {
+    private final List<String> mEvents = new ArrayList<>();
+    private final FakeScheduler mScheduler = new FakeScheduler();
+    private ProgressDispatcher mDispatcher;
+
+    @Before
+    public void setUp() {
+        mEvents.clear();
+        mDispatcher = new ProgressDispatcher(new ProgressDispatcher.Target() {
+            @Override
+            public void dispatchProgressChanged(int start, int end, boolean fromUser) {
+                mEvents.add("changed " + start + "," + end + (fromUser ? " user" : ""));
+            }
+
+            @Override
+            public void dispatchRangeSettled(int start, int end) {
+                mEvents.add("settled " + start + "," + end);
+            }
+        }, mScheduler);
+    }
+
+    @Test
+    public void noPolicyDeliversEverything() {
+        mDispatcher.onProgressChanged(1, 10, true);
+        mDispatcher.onProgressChanged(1, 10, true);
+        mDispatcher.onProgressChanged(2, 10, false);
+        assertEquals(3, mEvents.size());
+    }
+
+    @Test
+    public void distinctDropsRepeatedValues() {
+        mDispatcher.setDistinct(true);
+        mDispatcher.onProgressChanged(1, 10, true);
+        mDispatcher.onProgressChanged(1, 10, true);
+        mDispatcher.onProgressChanged(2, 10, true);
+        assertEquals(2, mEvents.size());
+    }
+
+    @Test
+    public void throttleDeliversLeadingAndTrailing() {
+        mDispatcher.setThrottle(10); // 100ms
+
+        for (int i = 0; i < 20; i++) {
+            mDispatcher.onProgressChanged(i, 100, true);
+            mScheduler.advance(10);
+        }
+
+        // leading call, then one call per interval
+        assertEquals("changed 0,100 user", mEvents.get(0));
+        assertTrue(mEvents.size() <= 3);
+
+        mScheduler.advance(100);
+        assertEquals("changed 19,100 user", mEvents.get(mEvents.size() - 1));
+        assertFalse(mScheduler.hasPending());
+    }
+
+    @Test
+    public void debounceDeliversOnlyWhenIdle() {
+        mDispatcher.setDebounce(50);
+
+        for (int i = 0; i < 10; i++) {
+            mDispatcher.onProgressChanged(i, 100, i == 0);
+            mScheduler.advance(20);
+        }
+        assertEquals(0, mEvents.size());
+
+        mScheduler.advance(50);
+        assertEquals(1, mEvents.size());
+        // fromUser is kept from the folded changes
+        assertEquals("changed 9,100 user", mEvents.get(0));
+    }
+
+    @Test
+    public void settleFlushesPendingAndFiresOnce() {
+        mDispatcher.setDebounce(500);
+        mDispatcher.onProgressChanged(5, 50, true);
+        mDispatcher.settle(5, 50);
+        mDispatcher.settle(5, 50);
+
+        assertEquals(2, mEvents.size());
+        assertEquals("changed 5,50 user", mEvents.get(0));
+        assertEquals("settled 5,50", mEvents.get(1));
+        assertFalse(mScheduler.hasPending());
+    }
+
+    private static final class FakeScheduler implements ProgressDispatcher.Scheduler {
+        private long mNow = 1000;
+        private Runnable mRunnable;
+        private long mDueTime;
+
+        @Override
+        public long now() {
+            return mNow;
+        }
+
+        @Override
+        public void schedule(Runnable runnable, long delayMillis) {
+            mRunnable = runnable;
+            mDueTime = mNow + delayMillis;
+        }
+
+        @Override
+        public void cancel(Runnable runnable) {
+            if (mRunnable == runnable) {
+                mRunnable = null;
+            }
+        }
+
+        boolean hasPending() {
+            return mRunnable != null;
+        }
+
+        void advance(long millis) {
+            final long target = mNow + millis;
+            while (mRunnable != null && mDueTime <= target) {
+                mNow = mDueTime;
+                final Runnable runnable = mRunnable;
+                mRunnable = null;
+                runnable.run();
+            }
+            mNow = target;
+        }
+    }
+}
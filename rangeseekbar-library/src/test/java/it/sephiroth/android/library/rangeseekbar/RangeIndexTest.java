@@ -0,0 +1,117 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RangeIndexTest {
+
+    @Test
+    public void countMatchesLinearScan() {
+        final Random random = new Random(1);
+        final int[] values = new int[10_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(1000);
+        }
+
+        final RangeIndex index = new RangeIndex(values, Runnable::run);
+        assertTrue(index.isReady());
+        assertEquals(values.length, index.size());
+
+        for (int i = 0; i < 200; i++) {
+            final int a = random.nextInt(1100) - 50;
+            final int b = random.nextInt(1100) - 50;
+            final int start = Math.min(a, b);
+            final int end = Math.max(a, b);
+
+            int expected = 0;
+            for (int value : values) {
+                if (value >= start && value <= end) {
+                    expected++;
+                }
+            }
+            assertEquals(expected, index.count(start, end));
+        }
+    }
+
+    @Test
+    public void longValues() {
+        final long base = 1_500_000_000_000L;
+        final RangeIndex index = new RangeIndex(new long[]{base + 30, base, base + 10, base + 20, base + 10}, Runnable::run);
+
+        assertEquals(5, index.count(base, base + 30));
+        assertEquals(3, index.count(base + 10, base + 20));
+        assertEquals(2, index.count(base + 10, base + 10));
+        assertEquals(0, index.count(base + 11, base + 19));
+        assertEquals(0, index.count(base + 20, base + 10));
+    }
+
+    @Test
+    public void notReadyUntilSorted() {
+        final List<Runnable> pending = new ArrayList<>();
+        final Executor executor = pending::add;
+
+        final int[] values = {5, 3, 1};
+        final RangeIndex index = new RangeIndex(values, executor);
+        final boolean[] ready = new boolean[1];
+        index.addOnReadyListener(() -> ready[0] = true);
+
+        // the caller can reuse its array
+        values[0] = 100;
+
+        assertFalse(index.isReady());
+        assertEquals(RangeIndex.NOT_READY, index.count(0, 10));
+
+        pending.get(0).run();
+
+        assertTrue(ready[0]);
+        assertEquals(3, index.count(0, 10));
+    }
+
+    @Test
+    public void sharedIndexNotifiesEveryListener() {
+        final List<Runnable> pending = new ArrayList<>();
+        final RangeIndex index = new RangeIndex(new int[]{1, 2, 3}, pending::add);
+
+        final int[] calls = new int[2];
+        final Runnable first = () -> calls[0]++;
+        final Runnable second = () -> calls[1]++;
+        index.addOnReadyListener(first);
+        index.addOnReadyListener(second);
+        // removing one listener leaves the others registered
+        index.removeOnReadyListener(first);
+
+        pending.get(0).run();
+        assertEquals(0, calls[0]);
+        assertEquals(1, calls[1]);
+
+        // already sorted: invoked right away
+        index.addOnReadyListener(first);
+        assertEquals(1, calls[0]);
+        assertEquals(1, calls[1]);
+    }
+
+    @Test
+    public void defaultExecutorSortsInBackground() throws Exception {
+        final int[] values = new int[1_000_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = values.length - i;
+        }
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final RangeIndex index = new RangeIndex(values);
+        index.addOnReadyListener(latch::countDown);
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(1001, index.count(1000, 2000));
+    }
+}
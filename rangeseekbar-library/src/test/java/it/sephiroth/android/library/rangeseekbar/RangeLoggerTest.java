@@ -0,0 +1,212 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.SystemClock;
+import android.view.ContextThemeWrapper;
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import it.sephiroth.android.library.simplelogger.LoggerFactory;
+import it.sephiroth.android.library.simplelogger.LoggerFactory.LoggerType;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith (AndroidJUnit4.class)
+@Config (sdk = 28)
+public class RangeLoggerTest {
+    private static final int WIDTH = 1000;
+    private static final int HEIGHT = 100;
+    /** Progress values all in the Integer cache, boxing them never allocates */
+    private static final int CACHED_MAX = 100;
+    /** Progress values outside of the Integer cache, boxing them always allocates */
+    private static final int UNCACHED_MAX = 100_000;
+
+    private int mLevel;
+
+    @Before
+    public void setUp() {
+        mLevel = RangeProgressBar.logger.getLevel();
+    }
+
+    @After
+    public void tearDown() {
+        RangeProgressBar.logger.setLevel(mLevel);
+    }
+
+    @Test
+    public void levels() {
+        final RangeLogger logger = new RangeLogger(LoggerFactory.getLogger("test", LoggerType.Null), RangeLogger.INFO);
+        assertFalse(logger.isLoggable(RangeLogger.VERBOSE));
+        assertFalse(logger.isLoggable(RangeLogger.DEBUG));
+        assertEquals(RangeLogger.ENABLED, logger.isLoggable(RangeLogger.INFO));
+        assertEquals(RangeLogger.ENABLED, logger.isLoggable(RangeLogger.ERROR));
+
+        logger.setLevel(RangeLogger.NONE);
+        assertFalse(logger.isLoggable(RangeLogger.ERROR));
+    }
+
+    /**
+     * Only runs with the release unit tests (testReleaseUnitTest), where {@link BuildConfig#LOG_ENABLED}
+     * is false: nothing is loggable, whatever the runtime level.
+     */
+    @Test
+    public void releaseBuildLogsNothing() {
+        Assume.assumeFalse(BuildConfig.LOG_ENABLED);
+
+        final RangeLogger logger = new RangeLogger("test");
+        assertEquals(RangeLogger.NONE, logger.getLevel());
+
+        logger.setLevel(RangeLogger.VERBOSE);
+        assertFalse(logger.isLoggable(RangeLogger.VERBOSE));
+        assertFalse(logger.isLoggable(RangeLogger.ERROR));
+    }
+
+    /**
+     * Drags and draws a laid out seek bar with the logging disabled at runtime, and checks that the
+     * logging calls don't box their int arguments.
+     */
+    @Test
+    public void runtimeLevelNoneDoesNotBox() {
+        RangeProgressBar.logger.setLevel(RangeLogger.NONE);
+        assertDragAndDrawDoesNotBox();
+    }
+
+    /**
+     * Same as {@link #runtimeLevelNoneDoesNotBox()} but with every level enabled at runtime, so only
+     * the compile time constant disables the calls. Only runs with the release unit tests.
+     */
+    @Test
+    public void releaseBuildDoesNotBox() {
+        Assume.assumeFalse(BuildConfig.LOG_ENABLED);
+        RangeProgressBar.logger.setLevel(RangeLogger.VERBOSE);
+        assertDragAndDrawDoesNotBox();
+    }
+
+    /**
+     * The same drag is replayed on two bars which only differ by their max: with {@link #CACHED_MAX} a
+     * boxed progress value comes from the Integer cache, with {@link #UNCACHED_MAX} it is a new object.
+     * Everything else allocated by the view and by the test runtime is the same for both bars, so the
+     * difference is what the logging calls box.
+     */
+    private static void assertDragAndDrawDoesNotBox() {
+        // the allocation counters are an extension of the HotSpot based JVMs
+        Assume.assumeTrue(isThreadAllocatedMemorySupported());
+        AllocationCounter.enable();
+
+        final RangeSeekBar cached = newSeekBar(CACHED_MAX);
+        final RangeSeekBar uncached = newSeekBar(UNCACHED_MAX);
+        final Canvas canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+
+        // warm up, class loading and jit must not be counted
+        dragAndDraw(cached, canvas, 1_000);
+        dragAndDraw(uncached, canvas, 1_000);
+
+        final int iterations = 5_000;
+        final long cachedBytes = allocatedWhile(cached, canvas, iterations);
+        final long uncachedBytes = allocatedWhile(uncached, canvas, iterations);
+
+        // a single boxed int is at least 16 bytes
+        final long boxed = uncachedBytes - cachedBytes;
+        assertTrue("boxed " + boxed + " bytes in " + iterations + " moves", boxed < iterations);
+    }
+
+    private static RangeSeekBar newSeekBar(int max) {
+        final Context context = new ContextThemeWrapper(
+            ApplicationProvider.getApplicationContext(), R.style.Theme_AppCompat_Light);
+
+        final RangeSeekBar seekBar = new RangeSeekBar(context, null, 0, R.style.Sephiroth_Widget_RangeSeekBar);
+        seekBar.measure(
+            View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+            View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY)
+        );
+        seekBar.layout(0, 0, WIDTH, HEIGHT);
+        seekBar.setMax(max);
+        seekBar.setProgress(max / 10, max * 9 / 10);
+        return seekBar;
+    }
+
+    private static long allocatedWhile(RangeSeekBar seekBar, Canvas canvas, int iterations) {
+        final long before = AllocationCounter.current();
+        dragAndDraw(seekBar, canvas, iterations);
+        return AllocationCounter.current() - before;
+    }
+
+    /**
+     * Drag the start thumb back and forth between 20% and 60% of the track, drawing after every move.
+     * The positions are whole tenths of the track, so both bars draw at the same pixels.
+     */
+    private static void dragAndDraw(RangeSeekBar seekBar, Canvas canvas, int moves) {
+        final float y = HEIGHT / 2f;
+        final long time = SystemClock.uptimeMillis();
+
+        dispatch(seekBar, MotionEvent.obtain(time, time, MotionEvent.ACTION_DOWN, thumbX(seekBar, 0.1f), y, 0));
+        for (int i = 0; i < moves; i++) {
+            final float x = thumbX(seekBar, (2 + i % 5) / 10f);
+            dispatch(seekBar, MotionEvent.obtain(time, time + i, MotionEvent.ACTION_MOVE, x, y, 0));
+            seekBar.draw(canvas);
+        }
+        dispatch(seekBar, MotionEvent.obtain(time, time + moves, MotionEvent.ACTION_UP, thumbX(seekBar, 0.1f), y, 0));
+        seekBar.draw(canvas);
+    }
+
+    /**
+     * Touch position of the start thumb at the given fraction of the track, as the seek bar maps it
+     */
+    private static float thumbX(RangeSeekBar seekBar, float fraction) {
+        final int thumbWidth = seekBar.getThumbStart().getIntrinsicWidth();
+        final int thumbOffset = seekBar.getThumbOffset();
+        final int available = seekBar.getWidth() - seekBar.getPaddingLeft() - seekBar.getPaddingRight()
+            - seekBar.getProgressOffset() - thumbWidth + thumbOffset * 2;
+        return seekBar.getPaddingLeft() + available * fraction + thumbWidth / 2f - thumbOffset;
+    }
+
+    private static void dispatch(RangeSeekBar seekBar, MotionEvent event) {
+        seekBar.onTouchEvent(event);
+        event.recycle();
+    }
+
+    private static boolean isThreadAllocatedMemorySupported() {
+        try {
+            final Class<?> type = Class.forName("com.sun.management.ThreadMXBean");
+            return type.isInstance(ManagementFactory.getThreadMXBean()) && AllocationCounter.isSupported();
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Only loaded once com.sun.management.ThreadMXBean is known to be available
+     */
+    private static final class AllocationCounter {
+        static boolean isSupported() {
+            return bean().isThreadAllocatedMemorySupported();
+        }
+
+        static void enable() {
+            bean().setThreadAllocatedMemoryEnabled(true);
+        }
+
+        static long current() {
+            return bean().getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+
+        private static com.sun.management.ThreadMXBean bean() {
+            return (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        }
+    }
+}
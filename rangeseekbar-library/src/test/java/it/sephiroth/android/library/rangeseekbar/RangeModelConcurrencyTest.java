@@ -0,0 +1,107 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Hammers a {@link RangeModel} from several writer threads (including max changes) while
+ * reader threads check that every published range is consistent.
+ */
+public class RangeModelConcurrencyTest {
+    private static final int WRITERS = 4;
+    private static final int READERS = 2;
+    private static final int ITERATIONS = 200_000;
+    private static final int MAX_1 = 1000;
+    private static final int MAX_2 = 600;
+
+    @Test
+    public void noTornRanges() throws Exception {
+        final RangeModel model = new RangeModel();
+        model.setMax(MAX_1);
+        model.setStepSize(5);
+        model.setMinMaxStepSize(10);
+
+        final AtomicReference<String> failure = new AtomicReference<>();
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicLong reads = new AtomicLong();
+        final CountDownLatch startSignal = new CountDownLatch(1);
+        final CountDownLatch writersDone = new CountDownLatch(WRITERS + 1);
+        final CountDownLatch readersDone = new CountDownLatch(READERS);
+
+        for (int i = 0; i < WRITERS; i++) {
+            final long seed = i;
+            new Thread(() -> {
+                final Random random = new Random(seed);
+                await(startSignal);
+                for (int j = 0; j < ITERATIONS && failure.get() == null; j++) {
+                    final int a = random.nextInt(MAX_1 + 200) - 100;
+                    final int b = random.nextInt(MAX_1 + 200) - 100;
+                    final long range = model.apply(a, b);
+                    check(failure, range, "writer");
+                }
+                writersDone.countDown();
+            }).start();
+        }
+
+        // continuously change the max value
+        new Thread(() -> {
+            await(startSignal);
+            for (int j = 0; j < ITERATIONS / 100 && failure.get() == null; j++) {
+                model.setMax(j % 2 == 0 ? MAX_2 : MAX_1);
+            }
+            model.setMax(MAX_2);
+            writersDone.countDown();
+        }).start();
+
+        for (int i = 0; i < READERS; i++) {
+            new Thread(() -> {
+                await(startSignal);
+                while (running.get() && failure.get() == null) {
+                    check(failure, model.getRange(), "reader");
+                    reads.incrementAndGet();
+                }
+                readersDone.countDown();
+            }).start();
+        }
+
+        startSignal.countDown();
+        assertTrue(writersDone.await(60, TimeUnit.SECONDS));
+        running.set(false);
+        assertTrue(readersDone.await(10, TimeUnit.SECONDS));
+
+        assertNull(failure.get(), failure.get());
+        assertTrue(reads.get() > 0);
+
+        // once every writer is done the last max must be honored
+        final long range = model.getRange();
+        assertEquals(MAX_2, model.getMax());
+        assertTrue(RangeModel.end(range) <= MAX_2);
+        assertTrue(RangeModel.start(range) <= RangeModel.end(range));
+    }
+
+    private static void check(AtomicReference<String> failure, long range, String who) {
+        final int start = RangeModel.start(range);
+        final int end = RangeModel.end(range);
+        if (start < 0 || start > end || end > MAX_1) {
+            failure.compareAndSet(null, who + " observed an invalid range: " + start + ", " + end);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package it.sephiroth.android.library.rangeseekbar
+
+import android.os.SystemClock
+import android.view.ContextThemeWrapper
+import android.view.MotionEvent
+import android.view.View
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.flow.collect
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.test.TestCoroutineScope
+import kotlinx.coroutines.test.runBlockingTest
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.annotation.Config
+
+@ExperimentalCoroutinesApi
+@RunWith(AndroidJUnit4::class)
+@Config(sdk = [28])
+class RangeSeekBarFlowsTest {
+    private lateinit var seekBar: RangeSeekBar
+
+    @Before
+    fun setUp() {
+        val context = ContextThemeWrapper(ApplicationProvider.getApplicationContext(), R.style.Theme_AppCompat_Light)
+        seekBar = RangeSeekBar(context, null, 0, R.style.Sephiroth_Widget_RangeSeekBar)
+        seekBar.measure(
+            View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+            View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY)
+        )
+        seekBar.layout(0, 0, WIDTH, HEIGHT)
+        seekBar.max = 100
+        seekBar.setProgress(10, 90)
+    }
+
+    @Test
+    fun slowCollectorOnlyGetsTheNewestRange() = runBlockingTest {
+        val values = mutableListOf<Range>()
+        val job = launch { seekBar.rangeFlow().collect { values.add(it) } }
+        assertEquals(listOf(Range(10, 90, false)), values)
+
+        pauseDispatcher()
+        seekBar.setProgress(20, 90)
+        seekBar.setProgress(30, 90)
+        seekBar.setProgress(40, 80)
+        resumeDispatcher()
+
+        assertEquals(listOf(Range(10, 90, false), Range(40, 80, false)), values)
+        job.cancel()
+    }
+
+    @Test
+    fun emitCurrent() = runBlockingTest {
+        val values = mutableListOf<Range>()
+        val job = launch { seekBar.rangeFlow(emitCurrent = false).collect { values.add(it) } }
+        assertEquals(emptyList<Range>(), values)
+
+        seekBar.setProgress(20, 90)
+        assertEquals(listOf(Range(20, 90, false)), values)
+        job.cancel()
+    }
+
+    @Test
+    fun listenerIsRemovedOnCancel() = runBlockingTest {
+        assertEquals(0, seekBar.onRangeSeekBarChangeListenerCount)
+
+        val rangeJob = launch { seekBar.rangeFlow().collect { } }
+        val trackingJob = launch { seekBar.trackingFlow().collect { } }
+        assertEquals(2, seekBar.onRangeSeekBarChangeListenerCount)
+
+        rangeJob.cancel()
+        trackingJob.cancel()
+        assertEquals(0, seekBar.onRangeSeekBarChangeListenerCount)
+    }
+
+    @Test
+    fun trackingEventsInOrder() = runBlockingTest {
+        val events = mutableListOf<TrackingEvent>()
+        val job = launch { seekBar.trackingFlow().collect { events.add(it) } }
+
+        val time = SystemClock.uptimeMillis()
+        dispatch(MotionEvent.obtain(time, time, MotionEvent.ACTION_DOWN, WIDTH * 0.1f, HEIGHT / 2f, 0))
+        dispatch(MotionEvent.obtain(time, time + 16, MotionEvent.ACTION_MOVE, WIDTH * 0.3f, HEIGHT / 2f, 0))
+        dispatch(MotionEvent.obtain(time, time + 32, MotionEvent.ACTION_UP, WIDTH * 0.4f, HEIGHT / 2f, 0))
+
+        assertEquals(listOf(TrackingEvent.Started, TrackingEvent.Stopped), events)
+        job.cancel()
+    }
+
+    @Test
+    fun stateFlowFollowsTheRange() {
+        val scope = TestCoroutineScope()
+        val state = seekBar.rangeStateFlow(scope)
+        assertEquals(Range(10, 90, false), state.value)
+
+        seekBar.setProgress(20, 80)
+        assertEquals(Range(20, 80, false), state.value)
+
+        scope.cancel()
+        assertEquals(0, seekBar.onRangeSeekBarChangeListenerCount)
+    }
+
+    private fun dispatch(event: MotionEvent) {
+        seekBar.onTouchEvent(event)
+        event.recycle()
+    }
+
+    private companion object {
+        const val WIDTH = 1000
+        const val HEIGHT = 100
+    }
+}
@@ -0,0 +1,119 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import android.content.Context;
+import android.graphics.Rect;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith (AndroidJUnit4.class)
+@Config (sdk = 28)
+public class RangeSeekBarInvalidationTest {
+    private static final int WIDTH = 1000;
+    private static final int HEIGHT = 100;
+
+    private CountingRangeSeekBar mSeekBar;
+
+    @Before
+    public void setUp() {
+        final Context context = new ContextThemeWrapper(
+            ApplicationProvider.getApplicationContext(), R.style.Theme_AppCompat_Light);
+
+        mSeekBar = new CountingRangeSeekBar(context);
+        mSeekBar.measure(
+            View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+            View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY)
+        );
+        mSeekBar.layout(0, 0, WIDTH, HEIGHT);
+        mSeekBar.setProgress(10, 90);
+        mSeekBar.reset();
+    }
+
+    @Test
+    public void oneInvalidationPerUpdate() {
+        mSeekBar.setProgress(20, 90);
+        assertEquals(1, mSeekBar.invalidations);
+
+        // only the start thumb and the start of the track changed
+        final Rect dirty = mSeekBar.lastDirty;
+        assertTrue(dirty.width() > 0);
+        assertTrue("dirty: " + dirty, dirty.right < WIDTH / 2);
+    }
+
+    @Test
+    public void endOnlyUpdate() {
+        mSeekBar.setProgress(10, 80);
+        assertEquals(1, mSeekBar.invalidations);
+        assertTrue("dirty: " + mSeekBar.lastDirty, mSeekBar.lastDirty.left > WIDTH / 2);
+    }
+
+    @Test
+    public void sameValueNoInvalidation() {
+        mSeekBar.setProgress(10, 90);
+        assertEquals(0, mSeekBar.invalidations);
+    }
+
+    @Test
+    public void samePixelNoInvalidation() {
+        mSeekBar.setMax(1_000_000);
+        mSeekBar.setProgress(0, 1_000_000);
+        mSeekBar.reset();
+
+        // one value is a thousandth of a pixel: nothing moves on screen
+        mSeekBar.setProgress(1, 1_000_000);
+        assertEquals(1, mSeekBar.getProgressStart());
+        assertEquals(0, mSeekBar.invalidations);
+    }
+
+    static class CountingRangeSeekBar extends RangeSeekBar {
+        int invalidations;
+        // not final: invalidate is also called by the super constructors, before the fields are initialized
+        Rect lastDirty;
+
+        CountingRangeSeekBar(Context context) {
+            super(context, null, 0, R.style.Sephiroth_Widget_RangeSeekBar);
+        }
+
+        void reset() {
+            invalidations = 0;
+            lastDirty = new Rect();
+        }
+
+        @Override
+        public void invalidate() {
+            super.invalidate();
+            invalidations++;
+            if (lastDirty != null) {
+                lastDirty.set(0, 0, getWidth(), getHeight());
+            }
+        }
+
+        @Override
+        public void invalidate(int l, int t, int r, int b) {
+            super.invalidate(l, t, r, b);
+            invalidations++;
+            if (lastDirty != null) {
+                lastDirty.set(l, t, r, b);
+            }
+        }
+
+        @Override
+        public void invalidate(Rect dirty) {
+            super.invalidate(dirty);
+            invalidations++;
+            if (lastDirty != null) {
+                lastDirty.set(dirty);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RangeSeekBarMetricsTest {
+
+    @Test
+    public void bucketBoundaries() {
+        assertEquals(0, RangeSeekBarMetrics.Histogram.bucketOf(0));
+        assertEquals(1, RangeSeekBarMetrics.Histogram.bucketOf(1));
+        assertEquals(2, RangeSeekBarMetrics.Histogram.bucketOf(2));
+        assertEquals(2, RangeSeekBarMetrics.Histogram.bucketOf(3));
+        assertEquals(11, RangeSeekBarMetrics.Histogram.bucketOf(1500));
+        assertEquals(RangeSeekBarMetrics.Histogram.BUCKET_COUNT - 1, RangeSeekBarMetrics.Histogram.bucketOf(Long.MAX_VALUE));
+
+        for (long micros = 1; micros < 1_000_000; micros = micros * 3 + 1) {
+            final int bucket = RangeSeekBarMetrics.Histogram.bucketOf(micros);
+            assertTrue(micros < RangeSeekBarMetrics.Histogram.upperBound(bucket));
+            assertTrue(micros >= RangeSeekBarMetrics.Histogram.upperBound(bucket - 1));
+        }
+    }
+
+    @Test
+    public void percentiles() {
+        final RangeSeekBarMetrics metrics = new RangeSeekBarMetrics();
+        // 98 fast draws of 100us, 2 slow ones of 20ms
+        for (int i = 0; i < 98; i++) {
+            metrics.recordDraw(100_000);
+        }
+        metrics.recordDraw(20_000_000);
+        metrics.recordDraw(20_000_000);
+
+        final RangeSeekBarMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(100, snapshot.getDrawCount());
+        assertEquals(128, snapshot.getDrawTimeMicros(0.5f));
+        assertEquals(32768, snapshot.getDrawTimeMicros(0.99f));
+        assertEquals(0, snapshot.getListenerTimeMicros(0.5f));
+    }
+
+    @Test
+    public void countersAndReset() {
+        final RangeSeekBarMetrics metrics = new RangeSeekBarMetrics();
+        metrics.recordUpdateDelivered();
+        metrics.recordUpdatesCoalesced(3);
+        metrics.recordUpdatesCoalesced(0);
+        metrics.recordInvalidation();
+
+        RangeSeekBarMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(1, snapshot.getUpdatesDelivered());
+        assertEquals(3, snapshot.getUpdatesCoalesced());
+        assertEquals(1, snapshot.getInvalidations());
+
+        metrics.reset();
+        snapshot = metrics.snapshot();
+        assertEquals(0, snapshot.getUpdatesDelivered());
+        assertEquals(0, snapshot.getUpdatesCoalesced());
+        assertEquals(0, snapshot.getInvalidations());
+        assertEquals(0, snapshot.getDrawCount());
+    }
+}
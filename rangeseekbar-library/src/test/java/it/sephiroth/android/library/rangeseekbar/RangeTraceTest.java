@@ -0,0 +1,128 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.SystemClock;
+import android.view.ContextThemeWrapper;
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import androidx.annotation.NonNull;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith (AndroidJUnit4.class)
+@Config (sdk = 28)
+public class RangeTraceTest {
+    private static final int WIDTH = 1000;
+    private static final int HEIGHT = 100;
+
+    private FakeTracer mTracer;
+    private RangeSeekBar mSeekBar;
+
+    @Before
+    public void setUp() {
+        final Context context = new ContextThemeWrapper(
+            ApplicationProvider.getApplicationContext(), R.style.Theme_AppCompat_Light);
+
+        mSeekBar = new RangeSeekBar(context, null, 0, R.style.Sephiroth_Widget_RangeSeekBar);
+        mTracer = new FakeTracer();
+        RangeTrace.setTracer(mTracer);
+    }
+
+    @After
+    public void tearDown() {
+        RangeTrace.setTracer(null);
+    }
+
+    @Test
+    public void disabledByDefault() {
+        RangeTrace.setTracer(null);
+        assertFalse(RangeTrace.isEnabled());
+        assertNull(RangeTrace.begin(RangeTrace.LISTENER));
+    }
+
+    @Test
+    public void pairedWhenToggledInsideSection() {
+        final RangeTrace.Tracer tracer = RangeTrace.begin(RangeTrace.LISTENER);
+        RangeTrace.setTracer(null);
+        RangeTrace.end(tracer);
+
+        assertEquals(0, mTracer.depth);
+        assertEquals(1, mTracer.sections.size());
+    }
+
+    @Test
+    public void measureLayoutDraw() {
+        mSeekBar.measure(
+            View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+            View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY)
+        );
+        mSeekBar.layout(0, 0, WIDTH, HEIGHT);
+        mSeekBar.draw(new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888)));
+
+        assertEquals(0, mTracer.depth);
+        assertTrue(mTracer.sections.contains(RangeTrace.SEEKBAR_ON_MEASURE));
+        assertTrue(mTracer.sections.contains(RangeTrace.SEEKBAR_ON_DRAW));
+        assertTrue(mTracer.sections.contains(RangeTrace.PROGRESS_ON_DRAW));
+    }
+
+    @Test
+    public void touchRefreshListener() {
+        mSeekBar.measure(
+            View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+            View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY)
+        );
+        mSeekBar.layout(0, 0, WIDTH, HEIGHT);
+        mSeekBar.setProgress(10, 90);
+        mTracer.sections.clear();
+
+        final long time = SystemClock.uptimeMillis();
+        dispatch(MotionEvent.obtain(time, time, MotionEvent.ACTION_DOWN, WIDTH * 0.1f, HEIGHT / 2f, 0));
+        dispatch(MotionEvent.obtain(time, time + 16, MotionEvent.ACTION_MOVE, WIDTH * 0.3f, HEIGHT / 2f, 0));
+        dispatch(MotionEvent.obtain(time, time + 32, MotionEvent.ACTION_UP, WIDTH * 0.4f, HEIGHT / 2f, 0));
+
+        assertEquals(0, mTracer.depth);
+        assertTrue(mTracer.sections.contains(RangeTrace.TRACK_TOUCH_EVENT));
+        assertTrue(mTracer.sections.contains(RangeTrace.DO_REFRESH_PROGRESS));
+        assertTrue(mTracer.sections.contains(RangeTrace.LISTENER));
+    }
+
+    private void dispatch(MotionEvent event) {
+        mSeekBar.onTouchEvent(event);
+        event.recycle();
+        assertEquals(0, mTracer.depth);
+    }
+
+    static class FakeTracer implements RangeTrace.Tracer {
+        final List<String> sections = new ArrayList<>();
+        int depth;
+
+        @Override
+        public void beginSection(@NonNull String name) {
+            sections.add(name);
+            depth++;
+        }
+
+        @Override
+        public void endSection() {
+            depth--;
+            assertTrue("endSection without beginSection", depth >= 0);
+        }
+    }
+}
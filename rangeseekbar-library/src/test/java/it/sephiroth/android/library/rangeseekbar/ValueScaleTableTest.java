@@ -0,0 +1,76 @@
+package it.sephiroth.android.library.rangeseekbar;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ValueScaleTableTest {
+    private static final int WIDTH = 1000;
+    private static final float PIXEL = 1f / WIDTH;
+
+    @Test
+    public void linearTableMatchesTheScale() {
+        final ValueScaleTable table = new ValueScaleTable();
+        table.build(ValueScale.linear(), 100, WIDTH);
+
+        for (int value = 0; value <= 100; value++) {
+            assertEquals(value / 100f, table.toFraction(value), PIXEL);
+        }
+    }
+
+    @Test
+    public void logTableMatchesTheScale() {
+        final int max = 100_000;
+        final ValueScale scale = ValueScale.log();
+        final ValueScaleTable table = new ValueScaleTable();
+        table.build(scale, max, WIDTH);
+
+        for (int value = 0; value <= max; value += 37) {
+            assertEquals(scale.toFraction(value, max), table.toFraction(value), PIXEL);
+        }
+        assertEquals(1f, table.toFraction(max), 0f);
+    }
+
+    @Test
+    public void toValueIsTheInverse() {
+        final int max = 100_000;
+        final ValueScaleTable table = new ValueScaleTable();
+        table.build(ValueScale.log(), max, WIDTH);
+
+        float previous = -1;
+        for (int p = 0; p <= WIDTH; p++) {
+            final float value = table.toValue((float) p / WIDTH);
+            assertTrue(value >= previous);
+            previous = value;
+        }
+
+        for (int value = 0; value <= max; value += 37) {
+            assertEquals(value, table.toValue(table.toFraction(value)), 1f);
+        }
+        assertEquals(0f, table.toValue(0), 0f);
+        assertEquals(max, table.toValue(1), 0f);
+    }
+
+    @Test
+    public void piecewiseGivesHalfTrackToTheFirstBand() {
+        final ValueScale scale = ValueScale.piecewise(new int[]{0, 100, 100_000}, new float[]{0, 0.5f, 1});
+        final ValueScaleTable table = new ValueScaleTable();
+        table.build(scale, 100_000, WIDTH);
+
+        assertEquals(0.25f, table.toFraction(50), PIXEL);
+        assertEquals(0.5f, table.toFraction(100), PIXEL);
+        assertEquals(100, table.toValue(0.5f), 1f);
+    }
+
+    @Test
+    public void tableIsRebuiltOnlyWhenNeeded() {
+        final ValueScaleTable table = new ValueScaleTable();
+        table.build(ValueScale.log(), 100, WIDTH);
+
+        assertTrue(table.isValid(ValueScale.log(), 100, WIDTH));
+        assertTrue(!table.isValid(ValueScale.log(), 200, WIDTH));
+        assertTrue(!table.isValid(ValueScale.log(), 100, WIDTH + 1));
+        assertTrue(!table.isValid(ValueScale.linear(), 100, WIDTH));
+    }
+}